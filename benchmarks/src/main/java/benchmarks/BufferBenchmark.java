@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import utils.Buffer;
+import utils.Request;
+
+/*
+ * Benchmarks of Buffer.add and Buffer.take, alone and with several threads sharing the buffer.
+ * Every thread adds a request before taking one, so a take never waits forever.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BufferBenchmark {
+
+    // Same capacity as the servers
+    @Param({"20000"})
+    public int capacity;
+
+    private Buffer<Request> buf;
+    private Request request;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.buf = new Buffer<>(this.capacity);
+        this.request = new Request("0,1;^Fu");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Request addTake() throws InterruptedException {
+        this.buf.add(this.request);
+        return this.buf.take();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Request addTakeContended() throws InterruptedException {
+        this.buf.add(this.request);
+        return this.buf.take();
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import utils.Bytes;
+import utils.Cache;
+
+/*
+ * Benchmarks of Cache.get and Cache.add, alone and with several threads sharing the cache.
+ * The keys are the lines of the request file and the responses have a fixed size, as in OptimizedProtocol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({"easy-requests.txt", "network_intensive_requests.txt"})
+    public String requestFile;
+
+    @Param({"30"})
+    public int cacheSize;
+
+    @Param({"10"})
+    public float threshold;
+
+    @Param({"1000"})
+    public int responseSize;
+
+    private Bytes[] requests;
+    private Bytes miss;
+    private byte[] response;
+    private Cache<Bytes, byte[]> cache;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        String[] lines = Database.requests(this.requestFile);
+        this.requests = new Bytes[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            this.requests[i] = new Bytes(lines[i].length()).appendUtf8(lines[i]);
+        }
+        this.miss = new Bytes(16).appendUtf8("-1;never requested");
+        this.response = new byte[this.responseSize];
+        this.cache = new Cache<>(this.cacheSize, this.threshold);
+        for (int i = 0; i < this.cacheSize && i < this.requests.length; i++) {
+            this.cache.add(this.requests[i], this.response);
+        }
+    }
+
+    /*
+     * Position of each thread in the request file.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        public Bytes next(Bytes[] requests) {
+            Bytes request = requests[this.next];
+            this.next = (this.next + 1) % requests.length;
+            return request;
+        }
+    }
+
+    /*
+     * Lookup of a key inserted at setup.
+     */
+    @Benchmark
+    public byte[] getHit() {
+        return this.cache.get(this.requests[0]);
+    }
+
+    @Benchmark
+    public byte[] getMiss() {
+        return this.cache.get(this.miss);
+    }
+
+    /*
+     * Insertion in a full cache, hence with an eviction.
+     */
+    @Benchmark
+    public void add(Cursor cursor) {
+        this.cache.add(cursor.next(this.requests), this.response);
+    }
+
+    /*
+     * The pattern of OptimizedProtocol.processValue: lookup, then insertion on a miss.
+     */
+    @Benchmark
+    @Threads(1)
+    public byte[] getOrAdd(Cursor cursor) {
+        return lookup(cursor.next(this.requests));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] getOrAddContended(Cursor cursor) {
+        return lookup(cursor.next(this.requests));
+    }
+
+    private byte[] lookup(Bytes request) {
+        byte[] cached = this.cache.get(request);
+        if (cached != null) return cached;
+        this.cache.add(request, this.response);
+        return this.response;
+    }
+}
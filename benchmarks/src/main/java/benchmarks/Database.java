@@ -0,0 +1,96 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Small class to generate databases and load the request files used by the benchmarks.
+ */
+public class Database {
+
+    // Same number of categories as the real database
+    public static final int N_CATEGORIES = 6;
+
+    private static final String ALPHANUM = "abcdefghijklmnopqrstuvwxyz0123456789";
+    private static final String[] SYLLABLES = {
+        "ba", "co", "da", "fu", "ga", "ke", "lo", "mi", "na", "pi", "ra", "se", "to", "vu", "ze"
+    };
+
+    /*
+     * Generates the lines of a database with the same layout as the "category@@@sentence" text file.
+     * Sentences start either with capitalized words (hit by the network intensive requests)
+     * or with random alphanumeric words (rarely hit by the easy and cpu intensive requests).
+     * @param size : the number of lines
+     * @param seed : the seed of the generator, so that every fork sees the same database
+     * @return lines : an array of {category, sentence}
+     */
+    public static String[][] generate(int size, long seed) {
+        Random random = new Random(seed);
+        String[][] lines = new String[size][];
+
+        for (int i = 0; i < size; i++) {
+            StringBuilder sentence = new StringBuilder();
+            int nbWords = 8 + random.nextInt(16);
+            for (int w = 0; w < nbWords; w++) {
+                if (w > 0) sentence.append(' ');
+                if (random.nextBoolean()) {
+                    int nbSyllables = 1 + random.nextInt(3);
+                    for (int s = 0; s < nbSyllables; s++) {
+                        String syllable = SYLLABLES[random.nextInt(SYLLABLES.length)];
+                        if (w == 0 && s == 0) syllable = Character.toUpperCase(syllable.charAt(0)) + syllable.substring(1);
+                        sentence.append(syllable);
+                    }
+                } else {
+                    int length = 4 + random.nextInt(8);
+                    for (int c = 0; c < length; c++) {
+                        sentence.append(ALPHANUM.charAt(random.nextInt(ALPHANUM.length())));
+                    }
+                }
+            }
+            lines[i] = new String[] {Integer.toString(random.nextInt(N_CATEGORIES)), sentence.toString()};
+        }
+        return lines;
+    }
+
+    /*
+     * Groups the lines of the database by category, as OptimizedServer.fileToArray does.
+     * @param lines : the lines of the database
+     * @return array : the sentences indexed by category
+     */
+    public static String[][] byCategory(String[][] lines) {
+        List<List<String>> lists = new ArrayList<>();
+        for (int i = 0; i < N_CATEGORIES; i++) {
+            lists.add(new ArrayList<>());
+        }
+        for (String[] line : lines) {
+            lists.get(Integer.parseInt(line[0])).add(line[1]);
+        }
+
+        String[][] array = new String[N_CATEGORIES][];
+        for (int i = 0; i < N_CATEGORIES; i++) {
+            array[i] = lists.get(i).toArray(new String[0]);
+        }
+        return array;
+    }
+
+    /*
+     * Reads a request file of regex-generation/ ("types;regex" per line).
+     * The directory is given by the requests.dir property, by default regex-generation/ of the working directory or of its parent.
+     * @param filename : the name of the request file
+     * @return requests : the lines of the file
+     */
+    public static String[] requests(String filename) throws IOException {
+        File dir = new File(System.getProperty("requests.dir", "regex-generation"));
+        if (!dir.isDirectory()) dir = new File("..", dir.getPath());
+
+        List<String> requests = new ArrayList<>();
+        for (String line : Files.readAllLines(new File(dir, filename).toPath())) {
+            if (!line.isEmpty()) requests.add(line);
+        }
+        return requests.toArray(new String[0]);
+    }
+}
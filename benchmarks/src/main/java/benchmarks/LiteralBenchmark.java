@@ -0,0 +1,120 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.*;
+
+import utils.LiteralIndex;
+
+/*
+ * Benchmarks of the search of the literal regexes of a request file in the categories of the request,
+ * with the regex engine and with LiteralIndex (scalar loops or Vector API).
+ * The prefix filters of OptimizedProtocol are left out: every category of the request is searched.
+ * Every invocation takes the next request of the file and returns the number of matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class LiteralBenchmark {
+
+    @Param({"100000"})
+    public int dbSize;
+
+    @Param({"cpu-intensive-requests.txt"})
+    public String requestFile;
+
+    // true keeps the "^" of the regexes (prefixes), false searches the literals anywhere in the sentences
+    @Param({"true", "false"})
+    public boolean anchored;
+
+    // Number of characters kept from the literals, 0 for all of them (short ones have matches)
+    @Param({"0", "3"})
+    public int literalLength;
+
+    private String[][] dbMap;
+    private LiteralIndex[] indexes;
+    private int[][] types;
+    private String[] regexes;
+    private LiteralIndex.Literal[] literals;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.dbMap = Database.byCategory(Database.generate(this.dbSize, 2241));
+        this.indexes = new LiteralIndex[this.dbMap.length];
+        for (int i = 0; i < this.dbMap.length; i++) {
+            this.indexes[i] = new LiteralIndex(this.dbMap[i]);
+        }
+
+        String[] requests = Database.requests(this.requestFile);
+        this.types = new int[requests.length][];
+        this.regexes = new String[requests.length];
+        this.literals = new LiteralIndex.Literal[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            String[] split = requests[i].split(";", 2);
+            String[] typeList = split[0].split(",");
+            this.types[i] = new int[typeList.length];
+            for (int k = 0; k < typeList.length; k++) {
+                this.types[i][k] = Integer.parseInt(typeList[k]);
+            }
+
+            String literal = split[1].startsWith("^") ? split[1].substring(1) : split[1];
+            if (this.literalLength > 0) literal = literal.substring(0, Math.min(this.literalLength, literal.length()));
+            this.regexes[i] = (this.anchored ? "^" : "") + literal;
+            this.literals[i] = LiteralIndex.literal(this.regexes[i]);
+            if (this.literals[i] == null) throw new IllegalStateException("Not a literal : " + this.regexes[i]);
+        }
+        System.out.println("\nVector API used by LiteralIndex : " + LiteralIndex.isVectorized());
+    }
+
+    @Benchmark
+    public int regex() {
+        int request = next();
+        Matcher matcher = Pattern.compile(this.regexes[request]).matcher("");
+        int found = 0;
+        for (int type : this.types[request]) {
+            for (String sentence : this.dbMap[type]) {
+                if (matcher.reset(sentence).find()) found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dvector=false"})
+    public int scalar() {
+        return searchIndex();
+    }
+
+    @Benchmark
+    public int vector() {
+        return searchIndex();
+    }
+
+    /*
+     * Counts the matches of the next request with LiteralIndex.
+     */
+    private int searchIndex() {
+        int request = next();
+        int found = 0;
+        for (int type : this.types[request]) {
+            LiteralIndex index = this.indexes[type];
+            for (int j = index.next(this.literals[request], this.anchored, 0); j >= 0; j = index.next(this.literals[request], this.anchored, j + 1)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private int next() {
+        int request = this.next;
+        this.next = (this.next + 1) % this.regexes.length;
+        return request;
+    }
+}
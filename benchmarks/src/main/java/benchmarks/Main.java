@@ -0,0 +1,35 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Entry point of the benchmarks jar, the JMH runner with the allocation profiler enabled by default.
+ */
+public class Main {
+
+    /*
+     * Main method to launch the benchmarks.
+     * @param args : the usual JMH command line options (-h for the list)
+     * @return None
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+
+        // Listing and help requests are left to the default JMH main
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams()
+                || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        // Allocation rates (-prof gc) are reported unless other profilers are asked
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty()) builder.addProfiler(GCProfiler.class);
+
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import utils.BasicProtocol;
+import utils.OptimizedProtocol;
+
+/*
+ * Benchmarks of BasicProtocol.process and OptimizedProtocol.processValue, without the sockets.
+ * Every invocation takes the next request of the file, in the order of the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    @Param({"10000", "100000"})
+    public int dbSize;
+
+    @Param({"easy-requests.txt", "cpu-intensive-requests.txt", "network_intensive_requests.txt"})
+    public String requestFile;
+
+    // Same cache parameters as OptimizedServer
+    @Param({"30"})
+    public int cacheSize;
+
+    @Param({"10"})
+    public float threshold;
+
+    // Maximal number of matches per response, 0 for all of them
+    @Param({"0"})
+    public int limit;
+
+    // list, count or exists
+    @Param({"list"})
+    public String mode;
+
+    private String[] requests;
+    private BasicProtocol basic;
+    private OptimizedProtocol optimized;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String[][] lines = Database.generate(this.dbSize, 2241);
+        this.requests = Database.requests(this.requestFile);
+        String options = "mode=" + this.mode + (this.limit > 0 ? ",limit=" + this.limit : "");
+        if (!options.equals("mode=list")) {
+            for (int i = 0; i < this.requests.length; i++) {
+                this.requests[i] = options + ";" + this.requests[i];
+            }
+        }
+        this.basic = new BasicProtocol(lines);
+        this.optimized = new OptimizedProtocol(Database.byCategory(lines), this.cacheSize, this.threshold);
+    }
+
+    /*
+     * Position of each thread in the request file.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        public String next(String[] requests) {
+            String request = requests[this.next];
+            this.next = (this.next + 1) % requests.length;
+            return request;
+        }
+    }
+
+    @Benchmark
+    public String basicProcess(Cursor cursor) {
+        return this.basic.process(cursor.next(this.requests));
+    }
+
+    @Benchmark
+    public String optimizedProcessValue(Cursor cursor) throws InterruptedException {
+        return this.optimized.processValue(cursor.next(this.requests));
+    }
+}
@@ -0,0 +1,107 @@
+package benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import utils.Bytes;
+import utils.OptimizedProtocol;
+import utils.Request;
+import utils.RequestReader;
+
+/*
+ * Benchmark of the whole life of a request found in the cache, as in the threads of OptimizedServer:
+ * reading of the line, lookup in the cache and writing of the response.
+ * With -prof gc, gc.alloc.rate.norm should stay close to 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestLifecycleBenchmark {
+
+    @Param({"10000"})
+    public int dbSize;
+
+    @Param({"easy-requests.txt", "cpu-intensive-requests.txt", "network_intensive_requests.txt"})
+    public String requestFile;
+
+    private RequestReader reader;
+    private OutputStream sink;
+    private OptimizedProtocol protocol;
+    private OptimizedProtocol.Worker worker;
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String[] requests = Database.requests(this.requestFile);
+        // The cache holds every request of the file, so that all the requests are hits
+        this.protocol = new OptimizedProtocol(Database.byCategory(Database.generate(this.dbSize, 2241)), requests.length, 10);
+        this.worker = new OptimizedProtocol.Worker();
+        this.request = new Request();
+        this.sink = OutputStream.nullOutputStream();
+
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (String line : requests) {
+            lines.write((System.currentTimeMillis() + ";" + line + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        this.reader = new RequestReader(new CyclicInputStream(lines.toByteArray()));
+
+        // Warm-up of the cache
+        for (int i = 0; i < requests.length; i++) {
+            cacheHit();
+        }
+    }
+
+    @Benchmark
+    public long cacheHit() throws IOException {
+        this.reader.next(this.request);
+        this.request.startWait(System.currentTimeMillis());
+        this.request.endWait(System.currentTimeMillis());
+        this.request.startTreat(System.currentTimeMillis());
+
+        Bytes output = this.worker.getResponse();
+        output.clear();
+        output.appendLong(this.request.getSentByClient()).append((byte) ';');
+        this.protocol.process(this.request, this.worker);
+        output.append((byte) '\n');
+        this.request.endTreat(System.currentTimeMillis());
+
+        output.writeTo(this.sink);
+        return this.request.waitTime() + this.request.treatTime();
+    }
+
+    /*
+     * Stream repeating the same bytes forever, in place of the socket of the client.
+     */
+    public static class CyclicInputStream extends InputStream {
+        private final byte[] bytes;
+        private int position;
+
+        public CyclicInputStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            byte b = this.bytes[this.position];
+            this.position = (this.position + 1) % this.bytes.length;
+            return b & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            int n = Math.min(len, this.bytes.length - this.position);
+            System.arraycopy(this.bytes, this.position, b, off, n);
+            this.position = (this.position + n) % this.bytes.length;
+            return n;
+        }
+    }
+}
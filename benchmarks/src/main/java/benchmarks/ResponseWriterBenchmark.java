@@ -0,0 +1,112 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.*;
+
+import utils.Bytes;
+import utils.ResponseWriter;
+
+/*
+ * Benchmark of the writing of responses by several threads on a loopback socket:
+ * "locked" is the synchronized write of each response by its thread (one system call per response),
+ * "grouped" goes through the ResponseWriter. The number of writes per response is printed at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ResponseWriterBenchmark {
+
+    // 100 bytes for an easy request, 10000 for a network intensive one
+    @Param({"100", "10000"})
+    public int responseSize;
+
+    // Maximal delay of the writing thread, in microseconds
+    @Param({"0", "20"})
+    public int maxDelay;
+
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private SocketChannel channel;
+    private OutputStream out;
+    private ResponseWriter writer;
+    private Thread drain;
+    private Bytes response;
+    private final AtomicLong lockedWrites = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.client = SocketChannel.open(this.server.getLocalAddress());
+        this.channel = this.server.accept();
+        this.out = this.channel.socket().getOutputStream();
+        this.writer = new ResponseWriter(this.channel, 1024, 64, this.maxDelay * 1000L);
+
+        this.response = new Bytes(this.responseSize);
+        for (int i = 0; i < this.responseSize - 1; i++) this.response.append((byte) 'x');
+        this.response.append((byte) '\n');
+
+        // The client reads everything as fast as possible
+        this.drain = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            try {
+                while (this.client.read(buffer) >= 0) buffer.clear();
+            } catch (IOException e) {
+                // closed at the end of the benchmark
+            }
+        });
+        this.drain.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        this.writer.close();
+        if (this.writer.getResponses() > 0) {
+            System.out.println(String.format("%ngrouped : %d responses in %d writes, %.3f writes per response",
+                    this.writer.getResponses(), this.writer.getWrites(), this.writer.getWrites() / (double) this.writer.getResponses()));
+        }
+        if (this.lockedWrites.get() > 0) {
+            System.out.println(String.format("%nlocked : %d responses in %d writes, 1.000 writes per response",
+                    this.lockedWrites.get(), this.lockedWrites.get()));
+        }
+        this.channel.close();
+        this.client.close();
+        this.server.close();
+        this.drain.join();
+    }
+
+    @Benchmark
+    public void locked() throws IOException {
+        synchronized (this.out) {
+            this.response.writeTo(this.out);
+        }
+        this.lockedWrites.incrementAndGet();
+    }
+
+    @Benchmark
+    public void grouped(Output output) throws InterruptedException {
+        // The response is built in the buffer of the thread, which is given to the writer
+        output.response.append(this.response, 0, this.response.length());
+        output.response = this.writer.write(output.response);
+    }
+
+    /*
+     * Buffer of a thread, replaced by a free one at each write like in the server.
+     */
+    @State(Scope.Thread)
+    public static class Output {
+        public Bytes response = new Bytes(4096);
+    }
+}
@@ -9,11 +9,12 @@
 import java.io.*;
 import java.net.*;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 
+import utils.BasicProtocol;
 import utils.Buffer;
+import utils.PhaseEvent;
 import utils.Request;
+import utils.RequestEvent;
 
 /*
  * Basic server able to receive client requests and respond to them adequately.
@@ -38,7 +39,7 @@ public class BasicServer {
         // Arguments recovery and server creation
         final int N_THREADS = Integer.parseInt(args[2]);
         String resultFilename = args[3];
-        BasicServer.BasicProtocol protocol = new BasicServer.BasicProtocol(fileToArray(args[0]));
+        BasicProtocol protocol = new BasicProtocol(fileToArray(args[0]));
         ServerSocket serverSocket = new ServerSocket(Integer.parseInt(args[1]));
         Buffer<Request> buf = new Buffer<>(20000); // Arbitrary buffer capacity of 20000
 
@@ -65,17 +66,33 @@ public class BasicServer {
                         // Signal to stop the thread
                         if (value.equals("Stop")) break;
 
-                        request.endWait(new Date());
-                        request.startTreat(new Date());
-                        String output = request.getSentByClient().getTime() + ";" + protocol.process(value);
-                        request.endTreat(new Date());
+                        RequestEvent requestEvent = new RequestEvent(request.getId());
+                        requestEvent.begin();
+                        request.endWait(System.currentTimeMillis());
+                        request.startTreat(System.currentTimeMillis());
+                        String response = protocol.process(value, request.getId()); // records the RESPONSE phase
+                        String output = request.getSentByClient() + ";" + response;
+                        request.endTreat(System.currentTimeMillis());
 
                         qTime.add(request.waitTime());
                         sTime.add(request.treatTime());
 
+                        PhaseEvent lockEvent = new PhaseEvent(request.getId(), PhaseEvent.LOCK);
+                        lockEvent.begin();
                         synchronized (writer) {
+                            lockEvent.commit();
+                            PhaseEvent writeEvent = new PhaseEvent(request.getId(), PhaseEvent.WRITE);
+                            writeEvent.begin();
                             writer.println(output);
                             writer.flush();
+                            writeEvent.commit();
+                        }
+
+                        // Fields of the event computed only if it is recorded
+                        requestEvent.end();
+                        if (requestEvent.shouldCommit()) {
+                            requestEvent.set(RequestEvent.categories(value), false, response == null ? 0 : response.length(), request.waitTime());
+                            requestEvent.commit();
                         }
 
                         request = buf.take();
@@ -91,12 +108,14 @@ public class BasicServer {
 
         // Read lines and attribute requests to threads
         try {
+            long id = 0;
             String line = reader.readLine();
             while (line != null) {
                 String[] splitLine = line.split(";", 2);
                 Request request = new Request(splitLine[1]);
-                request.setSentByClient(new Date(Long.parseLong(splitLine[0])));
-                request.startWait(new Date());
+                request.setId(id++);
+                request.setSentByClient(Long.parseLong(splitLine[0]));
+                request.startWait(System.currentTimeMillis());
 
                 if (!buf.add(request)) System.err.println("The buffer is full, a request has been dropped !");
 
@@ -178,62 +197,4 @@ public class BasicServer {
         }
     }
 
-
-    /*
-     * Internal class to process the requests of the server.
-     */
-    public static class BasicProtocol {
-        private final String[][] DBLines;
-
-        /*
-         * Constructs an object BasicProtocol with the lines of the database given.
-         * @param DBlines : the lines of the database
-         * @return None
-         */
-        public BasicProtocol(String[][] lines) {
-            this.DBLines = lines;
-        }
-
-        /*
-         * Process the request with the database and returns the adequate response.
-         * @param request : the request to process
-         * @return response : the response to the request
-         */
-        public String process(String request) {
-            if (request == null) return null;
-
-            String[] splitRequest = request.split(";", 2);
-            if (splitRequest.length != 2) {
-                System.err.println("The request format is incorrect ! Process : impossible !");
-                return null;
-            }
-
-            // Preparation and extraction
-            String[] types = splitRequest[0].split(",");
-            String regex = splitRequest[1];
-            Pattern pattern = Pattern.compile(regex);
-
-            // Linear search
-            StringBuilder response = new StringBuilder();
-            for (int i = 0; i < this.DBLines.length; i++) {
-                if (types.length == 0) {
-                    Matcher matcher = pattern.matcher(this.DBLines[i][1]);
-                    if (matcher.find()) {
-                        response.append(this.DBLines[i][0]).append("@@@").append(this.DBLines[i][1]).append("\n");
-                    }
-                } else {
-                    for (String type : types) {
-                        if (this.DBLines[i][0].equals(type)) {
-                            Matcher matcher = pattern.matcher(this.DBLines[i][1]);
-                            if (matcher.find()) {
-                                response.append(this.DBLines[i][0]).append("@@@").append(this.DBLines[i][1]).append("\n");
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-            return response.toString();
-        }
-    }
 }
\ No newline at end of file
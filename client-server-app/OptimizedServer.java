@@ -9,22 +9,31 @@
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 // optimized ...
-import java.util.List;
-import java.util.Date;
 import java.util.Scanner;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Set;
 import java.util.Map;
 import java.util.HashSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 // ... optimized
 
 import utils.Buffer;
+import utils.Bytes;
+import utils.CacheSnapshot;
+import utils.PhaseEvent;
 import utils.Request;
-import utils.Cache;
+import utils.RequestEvent;
+import utils.RequestReader;
+import utils.ResponseWriter;
+import utils.OptimizedProtocol;
+import utils.TimeList;
+import utils.TraceWriter;
 
 /*
  * Optimized server able to receive client requests and respond to them adequately (with cache).
@@ -37,58 +46,120 @@ public class OptimizedServer {
      * @param portNumber : the port used to establish the connection with the client
      * @param nbThreads : the number of threads wanted for the server
      * @param resultFilename : the name for the file with all the results
+     * @param budget : (optional) the maximal time of the search of a request in milliseconds, 0 for no limit
      * @return None
      */
     public static void main(String[] args) throws InterruptedException, IOException {
         // Checking of the usage
-        if (args.length != 4) {
-            System.err.println("Usage: java OptimizedServer <database text file> <port number> <number of threads> <result filename>");
+        if (args.length != 4 && args.length != 5) {
+            System.err.println("Usage: java OptimizedServer <database text file> <port number> <number of threads> <result filename> [time budget in ms]");
             System.exit(1);
         }
 
         // Arguments recovery and server creation
         final int N_THREADS = Integer.parseInt(args[2]);
         String resultFilename = args[3];
-        OptimizedProtocol protocol = new OptimizedProtocol(fileToArray(args[0]), 30, 10); // optimized protocol
-        ServerSocket serverSocket = new ServerSocket(Integer.parseInt(args[1]));
+        long budget = args.length == 5 ? Long.parseLong(args[4]) : OptimizedProtocol.DEFAULT_BUDGET; // optimized
+        OptimizedProtocol protocol = new OptimizedProtocol(fileToArray(args[0]), 30, 10, budget); // optimized protocol
+
+        // optimized : warm start from the snapshot of the cache given by -Dsnapshot=<file>, which is saved
+        // every -Dsnapshot.period=<seconds> (60 by default) and when the server stops
+        String snapshotFilename = System.getProperty("snapshot");
+        if (snapshotFilename != null) {
+            CacheSnapshot snapshot = new CacheSnapshot(snapshotFilename, args[0], 30);
+            System.out.println(snapshot.load(protocol.getCache()) + " cache entries restored from " + snapshotFilename);
+
+            long period = Long.getLong("snapshot.period", 60);
+            ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            saver.scheduleAtFixedRate(() -> snapshot.save(protocol.getCache()), period, period, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                    System.out.println(snapshot.save(protocol.getCache()) + " cache entries saved in " + snapshotFilename)));
+        }
+        ServerSocketChannel serverSocket = ServerSocketChannel.open();
+        serverSocket.bind(new InetSocketAddress(Integer.parseInt(args[1])));
         Buffer<Request> buf = new Buffer<>(20000); // Arbitrary buffer capacity of 20000
+        Buffer<Request> pool = new Buffer<>(20000); // optimized : processed requests are reused
+        final Request stop = new Request("Stop");
 
-        // Lists to store the time for the queue and for the service
-        List<Long> qTime = new ArrayList<>();
-        List<Long> sTime = new ArrayList<>();
+        // Lists to store the time for the queue and for the service, one per thread // optimized
+        TimeList[] qTimes = new TimeList[N_THREADS];
+        TimeList[] sTimes = new TimeList[N_THREADS];
 
         // client read and write for the requests
-        Socket clientSocket = serverSocket.accept();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-        PrintWriter writer = new PrintWriter(clientSocket.getOutputStream(), true);
+        SocketChannel clientSocket = serverSocket.accept();
+        RequestReader reader = new RequestReader(Channels.newInputStream(clientSocket)); // optimized
+        // optimized : one thread writes the responses of all the threads by batches, waiting at most 20 microseconds for more
+        // (the threads wait when 1024 responses are not written yet, which also bounds the buffers kept for reuse)
+        ResponseWriter writer = new ResponseWriter(clientSocket, 1024, 64, 20_000);
+
+        // optimized : the requests received are recorded in the trace given by -Dtrace=<file>, to replay them with TraceReplay
+        String traceFilename = System.getProperty("trace");
+        TraceWriter trace = traceFilename != null ? new TraceWriter(traceFilename) : null;
+        final int connection = 0; // the server serves a single client connection
+        if (trace != null) {
+            // The end of the trace is also written if the server is stopped before the end of the client
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    trace.close();
+                } catch (IOException e) {
+                    System.err.println(e.getMessage());
+                }
+            }));
+        }
 
         System.out.println("Optimized server started at " + InetAddress.getLocalHost());
 
         // Definition of the threads
         Thread[] threads = new Thread[N_THREADS];
         for (int i=0; i < N_THREADS; i++) {
+            TimeList qTime = qTimes[i] = new TimeList();
+            TimeList sTime = sTimes[i] = new TimeList();
             threads[i] = new Thread(() -> {
                 try {
+                    // Objects reused for all the requests of the thread // optimized
+                    OptimizedProtocol.Worker worker = new OptimizedProtocol.Worker();
+                    Bytes output = worker.getResponse();
+
                     Request request = buf.take();
                     while (request != null) {
-                        String value = request.getValue();
-
                         // Signal to stop the thread
-                        if (value.equals("Stop")) break;
-
-                        request.endWait(new Date());
-                        request.startTreat(new Date());
-                        String output = request.getSentByClient().getTime() + ";" + protocol.processValue(value);
-                        request.endTreat(new Date());
+                        if (request == stop) break;
+
+                        RequestEvent requestEvent = new RequestEvent(request.getId());
+                        requestEvent.begin();
+                        request.endWait(System.currentTimeMillis());
+                        request.startTreat(System.currentTimeMillis());
+                        output.clear();
+                        output.appendLong(request.getSentByClient()).append((byte) ';');
+                        int start = output.length();
+                        protocol.process(request, worker);
+                        int resultSize = output.length() - start;
+                        output.append((byte) '\n');
+                        request.endTreat(System.currentTimeMillis());
 
                         qTime.add(request.waitTime());
                         sTime.add(request.treatTime());
 
-                        synchronized (writer) {
-                            writer.println(output);
-                            writer.flush();
+                        PhaseEvent writeEvent = new PhaseEvent(request.getId(), PhaseEvent.WRITE);
+                        writeEvent.begin();
+                        // optimized : the buffer is given to the writer without copy, a free one is taken back
+                        output = writer.write(output);
+                        worker.setResponse(output);
+                        writeEvent.commit();
+
+                        // Fields of the event computed only if it is recorded
+                        requestEvent.end();
+                        if (requestEvent.shouldCommit()) {
+                            String categories = RequestEvent.categories(request.getBytes().toString());
+                            requestEvent.set(categories, worker.isCacheHit(), resultSize, request.waitTime());
+                            requestEvent.commit();
                         }
 
+                        pool.add(request);
                         request = buf.take();
                     }
                 } catch (InterruptedException e) {
@@ -101,21 +172,26 @@ public class OptimizedServer {
 
         // Read lines and attribute requests to threads
         try {
-            String line = reader.readLine();
-            while (line != null) {
-                String[] splitLine = line.split(";", 2);
-                Request request = new Request(splitLine[1]);
-                request.setSentByClient(new Date(Long.parseLong(splitLine[0])));
-                request.startWait(new Date());
-
-                if (!buf.add(request)) System.err.println("The buffer is full, a request has been dropped !");
+            long id = 0;
+            Request request = pool.poll();
+            if (request == null) request = new Request();
+            while (reader.next(request)) {
+                request.setId(id++);
+                if (trace != null) trace.record(connection, request.getBytes());
+                request.startWait(System.currentTimeMillis());
+
+                if (!buf.add(request)) {
+                    System.err.println("The buffer is full, a request has been dropped !");
+                    pool.add(request);
+                }
 
-                line = reader.readLine();
+                request = pool.poll();
+                if (request == null) request = new Request();
             }
 
             // Adds final stop messages to all the threads
             for (int i = 0; i < N_THREADS; i++) {
-                if (!buf.add(new Request("Stop"))) System.err.println("A thread is unstoppable !");
+                if (!buf.add(stop)) System.err.println("A thread is unstoppable !");
             }
 
         } catch (IOException e) {
@@ -128,12 +204,22 @@ public class OptimizedServer {
         }
 
         // Close everything
+        if (trace != null) {
+            trace.close();
+            System.out.println(trace.getCount() + " requests recorded in " + traceFilename);
+        }
         writer.close();
-        reader.close();
         serverSocket.close();
         clientSocket.close();
+        System.out.println(writer.getResponses() + " responses written in " + writer.getWrites() + " writes");
 
         // Writes the results to output files
+        TimeList qTime = new TimeList();
+        TimeList sTime = new TimeList();
+        for (int i = 0; i < N_THREADS; i++) {
+            qTime.addAll(qTimes[i]);
+            sTime.addAll(sTimes[i]);
+        }
         saveResults(qTime, resultFilename + "_queue.txt");
         saveResults(sTime, resultFilename + "_service.txt");
 
@@ -182,12 +268,12 @@ public class OptimizedServer {
      * @param filename : the file where to write the results
      * @return None
      */
-    public static void saveResults(List<Long> list, String filename) {
+    public static void saveResults(TimeList list, String filename) {
         try {
             FileWriter writer = new FileWriter(filename);
 
-            for (long line : list) {
-                writer.write(line + "\n");
+            for (int i = 0; i < list.size(); i++) {
+                writer.write(list.get(i) + "\n");
             }
 
             writer.close();
@@ -198,83 +284,4 @@ public class OptimizedServer {
         }
     }
 
-
-    /*
-     * Internal class to process the requests of the server.
-     */
-    public static class OptimizedProtocol {
-        private final Cache cache;
-        private final String[][] dbMap;
-
-        /*
-         * Constructs an object OptimizedProtocol with the lines of the database given.
-         * @param dbMap : the map of the lines of the database
-         * @param size : the maximal size of the cache
-         * @param threshold : the maximal threshold of frequency for the cache
-         * @return None
-         */
-        public OptimizedProtocol(String[][] dbMap, int size, float threshold) {
-            this.cache = new Cache(size, threshold);
-            this.dbMap = dbMap;
-        }
-
-        /*
-         * Process the request with the database and the cache and returns the adequate response.
-         * @param request : the request to process
-         * @return response : the response to the request
-         */
-        public String processValue(String request) throws InterruptedException {
-            if (request == null) return null;
-
-            String response;
-            String[] splitRequest = request.split(";", 2);
-            if (splitRequest.length != 2) {
-                System.err.println("The request format is incorrect ! Process : impossible !");
-                return null;
-            }
-
-            // Preparation and extraction
-            String[] types = splitRequest[0].split(",");
-            String regex = splitRequest[1];
-            Pattern pattern = Pattern.compile(regex);
-
-            // Checking if the request is already in the cache // optimized
-            response = this.cache.get(request);
-            if (response != null) return response;
-
-            // Search in the hashmap
-            int[] intTypes;
-            if (types[0].equals("") && types.length == 1) {
-                // If no types we search them all
-                intTypes = new int[this.dbMap.length];
-                for (int i = 0; i < intTypes.length; i++) {
-                    intTypes[i] = i;
-                }
-            } else {
-                intTypes = new int[types.length];
-                for (int i = 0; i < types.length; i++) {
-                    intTypes[i] = Integer.parseInt(types[i]);
-                }
-            }
-
-            // Concurrent search for each independent type
-            StringBuilder builder = new StringBuilder();
-            for (int key : intTypes) {
-                for (String value : OptimizedProtocol.this.dbMap[key]) {
-                    Matcher matcher = pattern.matcher(value);
-                    if (matcher.find()) {
-                        builder.append(key).append("@@@").append(value).append("\n");
-                    }
-                }
-            }
-            response = "";
-            if (builder.length() > 0)
-                response = builder.toString();
-
-            this.cache.add(request, response); // optimized
-            return response;
-        }
-    }
-
-
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+/*
+ * LINGI2241 - Architecture Performance and Computer Systems
+ * Project : Measurement & Modeling
+ */
+
+import java.io.*;
+import java.nio.file.Paths;
+import java.util.*;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import utils.TimeList;
+
+/*
+ * Offline tool summarizing a Flight Recorder recording of a server into per-phase latencies.
+ * The recording is made with : java -XX:StartFlightRecording=filename=<recording.jfr> OptimizedServer ...
+ */
+public class RecordingSummary {
+
+    // Phases in the order of the life of a request, "total" being the whole RequestEvent
+    static final String[] PHASES = {"queue", "parse", "cache", "filter", "compile", "scan", "response", "lock", "write", "total"};
+
+    /*
+     * Main method to launch the summary.
+     * @param recording : the .jfr file recorded on the server
+     * @return None
+     */
+    public static void main(String[] args) throws IOException {
+        // Checking of the usage
+        if (args.length != 1) {
+            System.err.println("Usage: java RecordingSummary <recording.jfr>");
+            System.exit(1);
+        }
+
+        // Times of each phase (in nanoseconds) per request id, a phase may be recorded several times per request
+        Map<Long, Map<String, Long>> phases = new HashMap<>();
+        Map<Long, Boolean> cacheHits = new HashMap<>();
+
+        // The events are read one by one, the recording is not loaded in memory
+        try (RecordingFile recording = new RecordingFile(Paths.get(args[0]))) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String name = event.getEventType().getName();
+                if (name.equals("lingi2241.Phase")) {
+                    long id = event.getLong("requestId");
+                    phases.computeIfAbsent(id, k -> new HashMap<>()).merge(event.getString("phase"), event.getDuration().toNanos(), Long::sum);
+                } else if (name.equals("lingi2241.Request")) {
+                    long id = event.getLong("requestId");
+                    Map<String, Long> times = phases.computeIfAbsent(id, k -> new HashMap<>());
+                    times.put("queue", event.getDuration("queueTime").toNanos());
+                    times.put("total", event.getDuration().toNanos());
+                    cacheHits.put(id, event.getBoolean("cacheHit"));
+                }
+            }
+        }
+
+        if (phases.isEmpty()) {
+            System.err.println("No request event in " + args[0] + " !");
+            System.exit(1);
+        }
+
+        printSummary("All requests", phases, null, cacheHits);
+        if (cacheHits.containsValue(true)) {
+            printSummary("Cache hits", phases, true, cacheHits);
+            printSummary("Cache misses", phases, false, cacheHits);
+        }
+    }
+
+    /*
+     * Prints the count, mean, percentiles and maximum of each phase for a group of requests.
+     * @param title : the title of the table
+     * @param phases : the times of the phases per request id
+     * @param cacheHit : the group of requests (null for all of them)
+     * @param cacheHits : the cache hit or miss of each request id
+     * @return None
+     */
+    public static void printSummary(String title, Map<Long, Map<String, Long>> phases, Boolean cacheHit, Map<Long, Boolean> cacheHits) {
+        System.out.println();
+        System.out.println(title + " (times in microseconds)");
+        System.out.println(String.format("%-10s %8s %10s %10s %10s %10s %10s", "phase", "count", "mean", "p50", "p90", "p99", "max"));
+
+        for (String phase : PHASES) {
+            List<Long> times = new ArrayList<>();
+            for (Map.Entry<Long, Map<String, Long>> entry : phases.entrySet()) {
+                if (cacheHit != null && !cacheHit.equals(cacheHits.get(entry.getKey()))) continue;
+                Long time = entry.getValue().get(phase);
+                if (time != null) times.add(time);
+            }
+            if (times.isEmpty()) continue;
+
+            Collections.sort(times);
+            double sum = 0;
+            for (long time : times) sum += time;
+
+            System.out.println(String.format("%-10s %8d %10.1f %10.1f %10.1f %10.1f %10.1f", phase, times.size(),
+                    sum / times.size() / 1000, TimeList.percentile(times, 50) / 1000, TimeList.percentile(times, 90) / 1000,
+                    TimeList.percentile(times, 99) / 1000, times.get(times.size() - 1) / 1000.0));
+        }
+    }
+}
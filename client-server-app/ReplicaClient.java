@@ -0,0 +1,113 @@
+/*
+ * LINGI2241 - Architecture Performance and Computer Systems
+ * Project : Measurement & Modeling
+ */
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.io.*;
+
+import utils.ReplicaPool;
+import utils.TimeList;
+
+/*
+ * Client sending the requests like Client, but to several replicas of the server through a ReplicaPool
+ * (least outstanding requests, hedged requests after a percentile of the response times).
+ * The percentiles printed at the end leave out the requests sent during the warm-up of the JVMs.
+ */
+public class ReplicaClient {
+
+    // Time after the start before the requests are counted in the printed percentiles, like in the pool
+    static final long WARMUP = ReplicaPool.WARMUP;
+
+    /*
+     * Main method to launch the client.
+     * @param inputFilename : file from where to read the requests
+     * @param replicas : the replicas "host:port,host:port,..."
+     * @param nbClients : the number of clients wanted for the server
+     * @param meanDelay : delay for the exponential distribution
+     * @param percentile : percentile of the response times after which a request is hedged (0 for no hedging)
+     * @param resultFilename : the name for the file with all the results
+     * @return None
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Checking of the usage
+        if (args.length != 6) {
+            System.err.println("Usage: java ReplicaClient <input filename> <host:port,host:port,...> <number of clients> <mean delay> <hedging percentile> <result filename>");
+            System.exit(1);
+        }
+
+        // Arguments recovery and pool creation
+        List<String> requests = Client.fileToList(args[0]);
+        int nbClients = Integer.parseInt(args[2]);
+        float lambda = 1/Float.parseFloat(args[3]);
+        ReplicaPool pool = new ReplicaPool(ReplicaPool.parse(args[1]), Double.parseDouble(args[4]));
+        String outputFilename = args[5];
+        Client.seed = new Random();
+
+        // Response times in microseconds, of all the requests and of the ones sent after the warm-up
+        final List<Long> results = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> measured = Collections.synchronizedList(new ArrayList<>());
+        final long begin = System.nanoTime();
+        final List<CompletableFuture<String>> responses = Collections.synchronizedList(new ArrayList<>());
+        final AtomicLong failures = new AtomicLong(); // requests failed because no replica was connected anymore
+
+        // Definition and execution of the client threads
+        Thread[] threads = new Thread[nbClients];
+        for (int i = 0; i < nbClients; i++) {
+            threads[i] = new Thread(() -> {
+                List<String> threadRequests = new ArrayList<>(requests);
+                Collections.shuffle(threadRequests);
+
+                for (String request : threadRequests) {
+                    try {
+                        // simulate inter-arrival time
+                        Thread.sleep((long) Client.exponential(lambda));
+
+                        long start = System.nanoTime();
+                        boolean warm = start - begin > WARMUP;
+                        CompletableFuture<String> response = pool.send(request);
+                        responses.add(response.handle((r, e) -> {
+                            if (e != null) {
+                                failures.incrementAndGet();
+                                return null;
+                            }
+                            long time = (System.nanoTime() - start) / 1000;
+                            results.add(time);
+                            if (warm) measured.add(time);
+                            return r;
+                        }));
+
+                    } catch (InterruptedException | IOException e) {
+                        System.err.println(e.getMessage());
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread t : threads) {
+            t.join();
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0])).join();
+        pool.close();
+
+        // Summary of the response times
+        List<Long> sorted = new ArrayList<>(measured);
+        Collections.sort(sorted);
+        String delay = pool.getHedgeDelay() < 0 ? "none" : String.format("%.1f ms", pool.getHedgeDelay() / 1e6);
+        System.out.println(String.format("%d responses, %d failed, %d hedged (%d answered first by the second replica), hedging delay %s",
+                results.size(), failures.get(), pool.getHedged(), pool.getHedgeWins(), delay));
+        if (!sorted.isEmpty()) {
+            System.out.println(String.format("response time (ms) of the %d requests after the warm-up : p50 %.1f, p95 %.1f, p99 %.1f, max %.1f",
+                    sorted.size(), TimeList.percentile(sorted, 50) / 1000, TimeList.percentile(sorted, 95) / 1000, TimeList.percentile(sorted, 99) / 1000, sorted.get(sorted.size() - 1) / 1000.0));
+        }
+
+        List<Long> millis = new ArrayList<>();
+        for (long time : results) millis.add(time / 1000);
+        Client.saveResults(millis, outputFilename + ".txt");
+
+        System.out.println("All clients finished !");
+    }
+}
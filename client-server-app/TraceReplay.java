@@ -0,0 +1,128 @@
+/*
+ * LINGI2241 - Architecture Performance and Computer Systems
+ * Project : Measurement & Modeling
+ */
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+
+import utils.Bytes;
+import utils.TraceReader;
+
+/*
+ * Client sending again the requests of a trace recorded by a server (java -Dtrace=<file> OptimizedServer ...),
+ * at the times they were received, to either server.
+ * The times can be scaled: a speed of 2 sends the requests twice as fast, 0.5 twice as slow.
+ * The requests are sent when they are due even if the responses are late (open loop), and the response
+ * times are written like the ones of Client. At the end, the connections are closed for writing: the
+ * server answers the last requests and closes them.
+ */
+public class TraceReplay {
+
+    /*
+     * Main method to launch the replay.
+     * @param traceFilename : the trace recorded by the server
+     * @param hostName : name of the server to use
+     * @param portNumber : the port used to establish the connection with the server
+     * @param speed : the factor dividing the times between the requests
+     * @param resultFilename : the name for the file with all the results
+     * @return None
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Checking of the usage
+        if (args.length != 5) {
+            System.err.println("Usage: java TraceReplay <trace file> <host name> <port number> <speed> <result filename>");
+            System.exit(1);
+        }
+
+        String host = args[1];
+        int port = Integer.parseInt(args[2]);
+        double speed = Double.parseDouble(args[3]);
+        String outputFilename = args[4];
+
+        // One connection per connection of the trace, opened when its first request is due
+        Map<Integer, OutputStream> writers = new HashMap<>();
+        List<Socket> sockets = new ArrayList<>();
+        List<Thread> receivers = new ArrayList<>();
+        final List<Long> results = Collections.synchronizedList(new ArrayList<>());
+
+        TraceReader trace = new TraceReader(args[0]);
+        long start = System.nanoTime();
+        long late = 0;
+        long count = 0;
+        Bytes output = new Bytes(256);
+
+        while (trace.next()) {
+            // Waits until the request is due, parkNanos may return early
+            long due = start + (long) (trace.getTime() / speed);
+            long now = System.nanoTime();
+            if (now - due > 1_000_000) late++;
+            while (now < due) {
+                LockSupport.parkNanos(due - now);
+                now = System.nanoTime();
+            }
+
+            int connection = trace.getConnection();
+            OutputStream writer = writers.get(connection);
+            if (writer == null) {
+                Socket socket = new Socket(host, port);
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                writer = new BufferedOutputStream(socket.getOutputStream());
+                writers.put(connection, writer);
+                receivers.add(receive(socket, results));
+            }
+
+            output.clear();
+            output.appendLong(System.currentTimeMillis()).append((byte) ';').append(trace.getLine(), 0, trace.getLine().length()).append((byte) '\n');
+            output.writeTo(writer);
+            writer.flush();
+            count++;
+        }
+        trace.close();
+
+        // The servers stop reading at the end of the stream, answer the last requests and close the connection
+        for (Socket socket : sockets) socket.shutdownOutput();
+        for (Thread receiver : receivers) receiver.join();
+        for (Socket socket : sockets) socket.close();
+
+        System.out.println(count + " requests replayed in " + (System.nanoTime() - start) / 1_000_000 + " ms, " + late + " sent more than 1 ms late");
+        Client.saveResults(results, outputFilename + ".txt");
+    }
+
+    /*
+     * Starts the thread reading the responses of a connection, until the server closes it.
+     * @param socket : the connection
+     * @param results : the list where the response times are added
+     * @return thread : the started thread
+     */
+    public static Thread receive(Socket socket, List<Long> results) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        Thread thread = new Thread(() -> {
+            try {
+                boolean resp = true;
+                String line = reader.readLine();
+
+                while (line != null) {
+                    if (resp) {
+                        resp = false;
+                        String[] splitResponse = line.split(";", 2);
+                        results.add(System.currentTimeMillis() - Long.parseLong(splitResponse[0]));
+                        line = splitResponse[1];
+                    }
+
+                    if (line.equals("")) resp = true;
+
+                    line = reader.readLine();
+                }
+
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,146 @@
+package utils;
+
+import java.util.regex.Pattern;
+
+/*
+ * Small class to process the requests of the basic server.
+ */
+public class BasicProtocol {
+    private final String[][] DBLines;
+    private final LiteralIndex literals;
+
+    /*
+     * Constructs an object BasicProtocol with the lines of the database given.
+     * @param DBlines : the lines of the database
+     * @return None
+     */
+    public BasicProtocol(String[][] lines) {
+        this.DBLines = lines;
+
+        String[] sentences = new String[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            sentences[i] = lines[i][1];
+        }
+        this.literals = new LiteralIndex(sentences);
+    }
+
+    /*
+     * Process the request with the database and returns the adequate response.
+     * @param request : the request to process
+     * @return response : the response to the request
+     */
+    public String process(String request) {
+        return process(request, -1);
+    }
+
+    /*
+     * Process the request with the database and returns the adequate response, with the phases
+     * recorded as PhaseEvent if the Flight Recorder is on.
+     * A request "limit=<n>,cursor=<c>;types;regex" stops the search after n matches and, if it stopped
+     * early, ends the response with a line "cursor=<c>" to send back to get the next matches.
+     * With the option "mode=count" or "mode=exists", the response is a single line "count=<n>" or
+     * "exists=true|false" and the search stops at the first match for exists.
+     * A regex that is a plain literal ("abc" or "^abc") is searched in the bytes of the lines by
+     * LiteralIndex instead of the regex engine.
+     * @param request : the request to process
+     * @param id : the id of the request
+     * @return response : the response to the request
+     */
+    public String process(String request, long id) {
+        if (request == null) return null;
+
+        PhaseEvent parseEvent = new PhaseEvent(id, PhaseEvent.PARSE);
+        parseEvent.begin();
+        String[] splitRequest = request.split(";", 2);
+        int limit = 0;
+        long cursor = 0;
+        String mode = "list";
+        if (splitRequest.length == 2 && splitRequest[0].contains("=")) {
+            // Options before the types
+            try {
+                for (String option : splitRequest[0].split(",")) {
+                    String[] splitOption = option.split("=", 2);
+                    // Like the optimized protocol, limit and cursor are positive numbers made of digits only
+                    if (splitOption.length == 2 && splitOption[0].equals("limit") && splitOption[1].matches("[0-9]+")) {
+                        limit = Integer.parseInt(splitOption[1]);
+                    } else if (splitOption.length == 2 && splitOption[0].equals("cursor") && splitOption[1].matches("[0-9]+")) {
+                        cursor = Long.parseLong(splitOption[1]);
+                    } else if (splitOption.length == 2 && splitOption[0].equals("mode")
+                            && (splitOption[1].equals("list") || splitOption[1].equals("count") || splitOption[1].equals("exists"))) {
+                        mode = splitOption[1];
+                    } else {
+                        throw new NumberFormatException("Unknown option " + option);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("The request options are incorrect ! Process : impossible !");
+                return null;
+            }
+            splitRequest = splitRequest[1].split(";", 2);
+        }
+        if (splitRequest.length != 2) {
+            System.err.println("The request format is incorrect ! Process : impossible !");
+            return null;
+        }
+
+        // Preparation and extraction
+        String[] types = splitRequest[0].split(",");
+        String regex = splitRequest[1];
+        parseEvent.commit();
+
+        // Plain literals don't need the regex engine
+        LiteralIndex.Literal literal = this.literals.isUsable() ? LiteralIndex.literal(regex) : null;
+        boolean anchored = regex.startsWith("^");
+        Pattern pattern = null;
+        if (literal == null) {
+            PhaseEvent compileEvent = new PhaseEvent(id, PhaseEvent.COMPILE);
+            compileEvent.begin();
+            pattern = Pattern.compile(regex);
+            compileEvent.commit();
+        }
+
+        // Linear search, from the cursor (index of the line) up to the limit
+        PhaseEvent scanEvent = new PhaseEvent(id, PhaseEvent.SCAN);
+        scanEvent.begin();
+        StringBuilder response = new StringBuilder();
+        boolean list = mode.equals("list");
+        if (mode.equals("exists")) limit = 1;
+        int found = 0;
+        for (int i = (int) Math.min(cursor, this.DBLines.length); i < this.DBLines.length; i++) {
+            // The lines before the next one containing the literal can't match
+            if (literal != null) {
+                i = this.literals.next(literal, anchored, i);
+                if (i < 0) break;
+            }
+
+            boolean match = false;
+            if (types.length == 0) {
+                match = literal != null || pattern.matcher(this.DBLines[i][1]).find();
+            } else {
+                for (String type : types) {
+                    if (this.DBLines[i][0].equals(type)) {
+                        match = literal != null || pattern.matcher(this.DBLines[i][1]).find();
+                        break;
+                    }
+                }
+            }
+
+            if (match) {
+                if (list) response.append(this.DBLines[i][0]).append("@@@").append(this.DBLines[i][1]).append("\n");
+                if (++found == limit) {
+                    if (list) response.append("cursor=").append(i + 1).append("\n");
+                    break;
+                }
+            }
+        }
+        if (mode.equals("count")) response.append("count=").append(found).append("\n");
+        if (mode.equals("exists")) response.append("exists=").append(found > 0).append("\n");
+        scanEvent.commit();
+
+        PhaseEvent responseEvent = new PhaseEvent(id, PhaseEvent.RESPONSE);
+        responseEvent.begin();
+        String result = response.toString();
+        responseEvent.commit();
+        return result;
+    }
+}
@@ -0,0 +1,304 @@
+package utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Small class to manage a growable array of bytes, reused from one request to the next.
+ * Two Bytes are equal when they hold the same bytes, so they can be used as keys of the cache.
+ */
+public class Bytes implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private byte[] array;
+    private int length;
+    private transient ByteBuffer buffer;
+
+    /*
+     * Constructs an empty object Bytes.
+     * @param capacity : the initial capacity
+     * @return None
+     */
+    public Bytes(int capacity) {
+        this.array = new byte[Math.max(capacity, 16)];
+        this.length = 0;
+    }
+
+    /*
+     * Returns the number of bytes.
+     * @param None
+     * @return length : the number of bytes
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /*
+     * Returns the number of bytes that can be held without growing the array.
+     * @param None
+     * @return capacity : the size of the array
+     */
+    public int capacity() {
+        return this.array.length;
+    }
+
+    /*
+     * Returns the byte at the given index.
+     * @param index : the index of the byte
+     * @return byte : the byte
+     */
+    public byte get(int index) {
+        return this.array[index];
+    }
+
+    /*
+     * Empties the array, the memory is kept for the next use.
+     * @param None
+     * @return None
+     */
+    public void clear() {
+        this.length = 0;
+    }
+
+    /*
+     * Removes the bytes after the given length, the memory is kept.
+     * @param length : the number of bytes to keep
+     * @return None
+     */
+    public void truncate(int length) {
+        this.length = Math.min(length, this.length);
+    }
+
+    /*
+     * Adds a byte at the end.
+     * @param b : the byte to add
+     * @return this
+     */
+    public Bytes append(byte b) {
+        ensureCapacity(this.length + 1);
+        this.array[this.length++] = b;
+        return this;
+    }
+
+    /*
+     * Adds bytes at the end.
+     * @param src : the bytes to add
+     * @return this
+     */
+    public Bytes append(byte[] src) {
+        return append(src, 0, src.length);
+    }
+
+    /*
+     * Adds a part of an array of bytes at the end.
+     * @param src : the bytes to add
+     * @param offset : the index of the first byte to add
+     * @param len : the number of bytes to add
+     * @return this
+     */
+    public Bytes append(byte[] src, int offset, int len) {
+        ensureCapacity(this.length + len);
+        System.arraycopy(src, offset, this.array, this.length, len);
+        this.length += len;
+        return this;
+    }
+
+    /*
+     * Adds a part of other bytes at the end.
+     * @param src : the bytes to add
+     * @param from : the index of the first byte (included)
+     * @param to : the index of the last byte (excluded)
+     * @return this
+     */
+    public Bytes append(Bytes src, int from, int to) {
+        return append(src.array, from, to - from);
+    }
+
+    /*
+     * Adds the decimal representation of a number at the end, without creating a String.
+     * @param n : the number to add
+     * @return this
+     */
+    public Bytes appendLong(long n) {
+        if (n == Long.MIN_VALUE) return appendUtf8(Long.toString(n));
+        if (n < 0) {
+            append((byte) '-');
+            n = -n;
+        }
+
+        int digits = 1;
+        for (long rest = n / 10; rest > 0; rest /= 10) digits++;
+        ensureCapacity(this.length + digits);
+        for (int i = this.length + digits - 1; i >= this.length; i--) {
+            this.array[i] = (byte) ('0' + n % 10);
+            n /= 10;
+        }
+        this.length += digits;
+        return this;
+    }
+
+    /*
+     * Adds the UTF-8 encoding of characters at the end, without creating a String nor an intermediate array.
+     * @param s : the characters to add
+     * @return this
+     */
+    public Bytes appendUtf8(CharSequence s) {
+        int n = s.length();
+        ensureCapacity(this.length + n);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                append((byte) c);
+            } else if (c < 0x800) {
+                append((byte) (0xc0 | (c >> 6)));
+                append((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                append((byte) (0xf0 | (cp >> 18)));
+                append((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                append((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                append((byte) (0x80 | (cp & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                append((byte) '?');
+            } else {
+                append((byte) (0xe0 | (c >> 12)));
+                append((byte) (0x80 | ((c >> 6) & 0x3f)));
+                append((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        return this;
+    }
+
+    /*
+     * Searches a byte from an index.
+     * @param b : the byte searched
+     * @param from : the index where to start the search
+     * @return index : the index of the first occurrence or -1 if absent
+     */
+    public int indexOf(byte b, int from) {
+        for (int i = from; i < this.length; i++) {
+            if (this.array[i] == b) return i;
+        }
+        return -1;
+    }
+
+    /*
+     * Tells if a part of the bytes is equal to the given bytes.
+     * @param from : the index of the first byte (included)
+     * @param to : the index of the last byte (excluded)
+     * @param other : the bytes to compare with
+     * @return : true if the bytes are the same
+     */
+    public boolean regionEquals(int from, int to, byte[] other) {
+        return Arrays.equals(this.array, from, to, other, 0, other.length);
+    }
+
+    /*
+     * Parses a part of the bytes as a positive decimal number, without creating a String.
+     * @param from : the index of the first byte (included)
+     * @param to : the index of the last byte (excluded)
+     * @return n : the number
+     * @throws NumberFormatException : if the bytes are not a positive number
+     */
+    public long parseLong(int from, int to) {
+        if (from >= to || to - from > 18) throw new NumberFormatException("Not a positive number : " + toString(from, to));
+        long n = 0;
+        for (int i = from; i < to; i++) {
+            byte b = this.array[i];
+            if (b < '0' || b > '9') throw new NumberFormatException("Not a positive number : " + toString(from, to));
+            n = n * 10 + (b - '0');
+        }
+        return n;
+    }
+
+    /*
+     * Copies a part of the bytes in a new array.
+     * @param from : the index of the first byte (included)
+     * @param to : the index of the last byte (excluded)
+     * @return array : the copy
+     */
+    public byte[] toByteArray(int from, int to) {
+        return Arrays.copyOfRange(this.array, from, to);
+    }
+
+    /*
+     * Copies the bytes in a new object Bytes of the exact size (to be kept as a key of the cache).
+     * @param None
+     * @return copy : the copy
+     */
+    public Bytes copy() {
+        Bytes copy = new Bytes(this.length);
+        copy.append(this.array, 0, this.length);
+        return copy;
+    }
+
+    /*
+     * Writes all the bytes in one call to the stream.
+     * @param out : the stream where to write
+     * @return None
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(this.array, 0, this.length);
+    }
+
+    /*
+     * Returns a ByteBuffer over the bytes, ready to be written to a channel.
+     * The same ByteBuffer is returned as long as the array has not grown.
+     * @param None
+     * @return buffer : the bytes, from position 0 to the length
+     */
+    public ByteBuffer asByteBuffer() {
+        if (this.buffer == null || this.buffer.array() != this.array) {
+            this.buffer = ByteBuffer.wrap(this.array);
+        }
+        this.buffer.clear().limit(this.length);
+        return this.buffer;
+    }
+
+    /*
+     * Decodes a part of the bytes as UTF-8.
+     * @param from : the index of the first byte (included)
+     * @param to : the index of the last byte (excluded)
+     * @return string : the decoded characters
+     */
+    public String toString(int from, int to) {
+        return new String(this.array, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return toString(0, this.length);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Bytes)) return false;
+        Bytes bytes = (Bytes) other;
+        return Arrays.equals(this.array, 0, this.length, bytes.array, 0, bytes.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < this.length; i++) {
+            hash = 31 * hash + this.array[i];
+        }
+        return hash;
+    }
+
+    /*
+     * Grows the array if it can't hold the given number of bytes.
+     * @param capacity : the number of bytes needed
+     * @return None
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.array.length) {
+            this.array = Arrays.copyOf(this.array, Math.max(capacity, this.array.length * 2));
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package utils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 /*
  * Small class to manage a simple cache.
+ * Requests without result can be kept apart as negative entries: they hold no response and are
+ * evicted only by other negative entries, so they never take the place of a response.
+ * @param <K> : the type of the requests
+ * @param <V> : the type of the responses
  */
-public class Cache {
-    private final Map<String, Entry> hashmap;
+public class Cache<K, V> {
+    private final Map<K, Entry<V>> hashmap;
+    private final Map<K, Boolean> negatives;
     private final int size;
     private final float threshold;
 
@@ -18,7 +26,24 @@ public class Cache {
      * @return None
      */
     public Cache(int size, float threshold) {
+        this(size, threshold, 0);
+    }
+
+    /*
+     * Constructs an object Cache with a size, a threshold and a size for the negative entries.
+     * @param size : the maximal size of the cache
+     * @param threshold : the maximal threshold of frequency
+     * @param negativeSize : the maximal number of negative entries (least recently used evicted first)
+     * @return None
+     */
+    public Cache(int size, float threshold, int negativeSize) {
         this.hashmap = new HashMap<>();
+        this.negatives = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Boolean> eldest) {
+                return size() > negativeSize;
+            }
+        };
         this.size = size;
         this.threshold = threshold;
     }
@@ -29,15 +54,15 @@ public class Cache {
      * @param response : the response corresponding to the request
      * @return None
      */
-    public synchronized void add(String request, String response) {
+    public synchronized void add(K request, V response) {
         // If the cache is full
         if (hashmap.size() >= this.size) {
-            String leastFreq = null;
+            K leastFreq = null;
             int minFreq = Integer.MAX_VALUE;
 
             // The least frequent element is removed
             int sumFreq = 0;
-            for (Map.Entry<String, Entry> entry : hashmap.entrySet()) {
+            for (Map.Entry<K, Entry<V>> entry : hashmap.entrySet()) {
                 sumFreq += entry.getValue().freq;
                 if (entry.getValue().freq < minFreq) {
                     leastFreq = entry.getKey();
@@ -47,22 +72,23 @@ public class Cache {
 
             // The frequencies are adjusted if the threshold is reached
             if (sumFreq/(float) hashmap.size() > this.threshold) {
-                for (Entry entry : hashmap.values()) {
+                for (Entry<V> entry : hashmap.values()) {
                     entry.freq /= 2;
                 }
             }
         }
-        hashmap.put(request, new Entry(response, 1));
+        hashmap.put(request, new Entry<>(response, 1));
     }
 
     /*
      * Gets the response corresponding to the request if it is in the cache, otherwise null.
+     * It is synchronized like add: it changes the frequency of the entry and the map is not thread safe.
      * @param request : the request searched
      * @return response : corresponding to the request or null if the request is not in the cache
      */
-    public String get(String request) {
-        if (hashmap.containsKey(request)) {
-            Entry entry = hashmap.get(request);
+    public synchronized V get(K request) {
+        Entry<V> entry = hashmap.get(request);
+        if (entry != null) {
             entry.freq += 1;
             return entry.response;
         } else {
@@ -70,11 +96,56 @@ public class Cache {
         }
     }
 
+    /*
+     * Puts back an element with its frequency (from a snapshot), if the cache is not full.
+     * @param request : the request of the element
+     * @param response : the response corresponding to the request
+     * @param freq : the frequency of the request
+     * @return : true if the element has been added
+     */
+    public synchronized boolean restore(K request, V response, int freq) {
+        if (hashmap.size() >= this.size) return false;
+        hashmap.put(request, new Entry<>(response, freq));
+        return true;
+    }
+
+    /*
+     * Copies the most frequent elements of the cache, the most frequent first.
+     * @param max : the maximal number of elements copied
+     * @return entries : the requests with their response and frequency
+     */
+    public synchronized List<Map.Entry<K, Entry<V>>> hottest(int max) {
+        List<Map.Entry<K, Entry<V>>> entries = new ArrayList<>(hashmap.size());
+        for (Map.Entry<K, Entry<V>> entry : hashmap.entrySet()) {
+            entries.add(Map.entry(entry.getKey(), new Entry<>(entry.getValue().response, entry.getValue().freq)));
+        }
+        entries.sort((a, b) -> Integer.compare(b.getValue().freq, a.getValue().freq));
+        return entries.subList(0, Math.min(max, entries.size()));
+    }
+
+    /*
+     * Adds a request without result in the negative entries.
+     * @param request : the request without result
+     * @return None
+     */
+    public synchronized void addNegative(K request) {
+        negatives.put(request, Boolean.TRUE);
+    }
+
+    /*
+     * Tells if the request is known to have no result.
+     * @param request : the request searched
+     * @return : true if the request is in the negative entries
+     */
+    public synchronized boolean isNegative(K request) {
+        return negatives.get(request) != null;
+    }
+
     /*
      * Internal class of the objects stored in the cache.
      */
-    public static class Entry {
-        public String response;
+    public static class Entry<V> {
+        public V response;
         public int freq;
 
         /*
@@ -83,7 +154,7 @@ public class Cache {
          * @param freq : the frequency of the request for this element
          * @return None
          */
-        public Entry(String response, int freq) {
+        public Entry(V response, int freq) {
             this.response = response;
             this.freq = freq;
         }
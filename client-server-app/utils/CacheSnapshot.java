@@ -0,0 +1,167 @@
+package utils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/*
+ * Small class to manage the snapshots of the cache of the optimized server in a file, so that a
+ * restarted server starts with the responses of the most frequent requests.
+ * The file holds the fingerprint of the database (its length and CRC32) followed by the entries
+ * (request, response, frequency), the most frequent first. A snapshot of another database is ignored.
+ */
+public class CacheSnapshot {
+    private static final int MAGIC = 0x4c494e47; // "LING"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final long fingerprint;
+    private final int max;
+
+    /*
+     * Constructs an object CacheSnapshot for a file and a database.
+     * @param filename : the file of the snapshots
+     * @param dbFilename : the database text file of the server
+     * @param max : the maximal number of entries saved
+     * @return None
+     */
+    public CacheSnapshot(String filename, String dbFilename, int max) throws IOException {
+        this.file = Paths.get(filename);
+        this.fingerprint = fingerprint(dbFilename);
+        this.max = max;
+    }
+
+    /*
+     * Fills the cache with the entries of the snapshot file, if it exists and was made on the same database.
+     * The whole file is checked before the cache is filled: a truncated or corrupted snapshot is ignored.
+     * @param cache : the cache to fill
+     * @return n : the number of entries restored
+     */
+    public int load(Cache<Bytes, byte[]> cache) {
+        if (!Files.exists(this.file)) return 0;
+
+        List<Bytes> requests = new ArrayList<>();
+        List<byte[]> responses = new ArrayList<>();
+        List<Integer> freqs = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file)))) {
+            long remaining = Files.size(this.file) - 20; // after the header
+            if (remaining < 0 || in.readInt() != MAGIC || in.readInt() != VERSION) return unreadable();
+            if (in.readLong() != this.fingerprint) {
+                System.err.println("The cache snapshot " + this.file + " was made on another database, it is ignored !");
+                return 0;
+            }
+
+            // Each entry takes at least 12 bytes (two lengths and the frequency)
+            int count = in.readInt();
+            if (count < 0 || count > remaining / 12) return unreadable();
+            for (int i = 0; i < count; i++) {
+                byte[] key = readBytes(in, remaining);
+                if (key == null) return unreadable();
+                remaining -= 4 + key.length;
+                byte[] response = readBytes(in, remaining);
+                if (response == null) return unreadable();
+                remaining -= 4 + response.length + 4;
+
+                Bytes request = new Bytes(key.length);
+                request.append(key);
+                requests.add(request);
+                responses.add(response);
+                freqs.add(in.readInt());
+            }
+
+        } catch (EOFException e) {
+            return unreadable();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return 0;
+        }
+
+        int restored = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            if (cache.restore(requests.get(i), responses.get(i), freqs.get(i))) restored++;
+        }
+        return restored;
+    }
+
+    /*
+     * Reads an array of bytes preceded by its length, if the length fits in the rest of the file.
+     * @param in : the stream of the snapshot
+     * @param remaining : the number of bytes left in the file, the length included
+     * @return bytes : the bytes read, null if the length is incorrect
+     */
+    private static byte[] readBytes(DataInputStream in, long remaining) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > remaining - 4) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /*
+     * Tells that the snapshot file can't be read.
+     * @param None
+     * @return n : 0, the number of entries restored
+     */
+    private int unreadable() {
+        System.err.println("The cache snapshot " + this.file + " is not readable, it is ignored !");
+        return 0;
+    }
+
+    /*
+     * Writes the most frequent entries of the cache in the snapshot file.
+     * The file is written next to it first and then renamed, so a crash never leaves half a snapshot.
+     * @param cache : the cache to save
+     * @return n : the number of entries saved
+     */
+    public synchronized int save(Cache<Bytes, byte[]> cache) {
+        List<Map.Entry<Bytes, Cache.Entry<byte[]>>> entries = cache.hottest(this.max);
+        Path tmp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(this.fingerprint);
+            out.writeInt(entries.size());
+            for (Map.Entry<Bytes, Cache.Entry<byte[]>> entry : entries) {
+                out.writeInt(entry.getKey().length());
+                out.write(entry.getKey().toByteArray(0, entry.getKey().length()));
+                out.writeInt(entry.getValue().response.length);
+                out.write(entry.getValue().response);
+                out.writeInt(entry.getValue().freq);
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return 0;
+        }
+
+        try {
+            Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return 0;
+        }
+        return entries.size();
+    }
+
+    /*
+     * Computes the fingerprint of a database file from its length and the CRC32 of its content.
+     * @param filename : the database text file
+     * @return fingerprint : the length in the 32 high bits and the CRC32 in the 32 low bits
+     */
+    public static long fingerprint(String filename) throws IOException {
+        CRC32 crc = new CRC32();
+        long length = 0;
+        try (InputStream in = new CheckedInputStream(new FileInputStream(filename), crc)) {
+            byte[] buffer = new byte[65536];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) length += n;
+        }
+        return (length << 32) | crc.getValue();
+    }
+}
@@ -0,0 +1,73 @@
+package utils;
+
+/*
+ * Small class to wrap a sentence given to a Matcher so that the matching stops at a deadline.
+ * Every 1024 characters read, the time and the interruption of the thread are checked and a
+ * GuardedSequence.Timeout is thrown out of Matcher.find() if the deadline is passed.
+ * The same object is reused for all the sentences of a thread.
+ */
+public class GuardedSequence implements CharSequence {
+    private static final Timeout TIMEOUT = new Timeout();
+
+    private String text;
+    private long deadline;
+    private int reads;
+
+    /*
+     * Sets the sentence and the deadline.
+     * @param text : the sentence
+     * @param deadline : the deadline, in the time of System.nanoTime()
+     * @return this
+     */
+    public GuardedSequence reset(String text, long deadline) {
+        this.text = text;
+        this.deadline = deadline;
+        return this;
+    }
+
+    /*
+     * Throws a Timeout if the deadline is passed or the thread is interrupted.
+     * @param deadline : the deadline, in the time of System.nanoTime()
+     * @return None
+     */
+    public static void check(long deadline) {
+        if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) throw TIMEOUT;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if ((++this.reads & 1023) == 0) check(this.deadline);
+        return this.text.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return this.text.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return this.text.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+    /*
+     * Exception thrown when the deadline of a request is passed (without stack trace, it is shared).
+     */
+    public static class Timeout extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /*
+         * Constructs the exception Timeout.
+         * @param None
+         * @return None
+         */
+        private Timeout() {
+            super("The deadline of the request is passed", null, false, false);
+        }
+    }
+}
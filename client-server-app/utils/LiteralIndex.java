@@ -0,0 +1,246 @@
+package utils;
+
+import java.util.Arrays;
+
+/*
+ * Small class to manage the sentences of a category as ASCII bytes, to answer the regexes that are plain
+ * literals ("abc" or "^abc") without the regex engine.
+ * The sentences are kept one after the other (separated by '\n') to search a literal inside them, and
+ * their first bytes are kept by columns (the byte c of every sentence together) to compare a prefix with
+ * many sentences at once. The searches use the Vector API when the JVM is started with
+ * "--add-modules jdk.incubator.vector" (unless -Dvector=false), and a scalar loop otherwise.
+ */
+public class LiteralIndex {
+    // Number of first bytes of the sentences kept by columns
+    private static final int COLUMNS = 16;
+    // Margin after the last sentence of the columns, so that vectors of up to 64 bytes can be read
+    private static final int PADDING = 64;
+    private static final boolean VECTOR = vectorAvailable();
+
+    private final int size;
+    private final byte[] text;
+    private final int[] offsets;
+    private final byte[][] columns;
+    private final boolean usable;
+
+    /*
+     * Constructs an object LiteralIndex with the sentences of a category.
+     * @param sentences : the sentences (the index is not usable if one of them is not ASCII)
+     * @return None
+     */
+    public LiteralIndex(String[] sentences) {
+        this.size = sentences.length;
+        this.offsets = new int[sentences.length + 1];
+        this.columns = new byte[COLUMNS][sentences.length + PADDING];
+
+        int length = 0;
+        boolean ascii = true;
+        for (String sentence : sentences) {
+            length += sentence.length() + 1;
+            for (int i = 0; i < sentence.length() && ascii; i++) ascii = sentence.charAt(i) < 0x80;
+        }
+        this.usable = ascii;
+        this.text = new byte[ascii ? length : 0];
+        if (!ascii) return;
+
+        int position = 0;
+        for (int s = 0; s < sentences.length; s++) {
+            String sentence = sentences[s];
+            this.offsets[s] = position;
+            for (int i = 0; i < sentence.length(); i++) {
+                byte b = (byte) sentence.charAt(i);
+                this.text[position++] = b;
+                if (i < COLUMNS) this.columns[i][s] = b;
+            }
+            this.text[position++] = '\n';
+        }
+        this.offsets[sentences.length] = position;
+    }
+
+    /*
+     * Tells if the searches of the index can be used (all the sentences are ASCII).
+     * @param None
+     * @return : true if the index can be used
+     */
+    public boolean isUsable() {
+        return this.usable;
+    }
+
+    /*
+     * Tells if the searches use the Vector API.
+     * @param None
+     * @return : true if the Vector API is used, false for the scalar loops
+     */
+    public static boolean isVectorized() {
+        return VECTOR;
+    }
+
+    /*
+     * Returns the literal of a regex made of ASCII characters without special meaning, optionally after a '^'.
+     * The regex matches exactly the sentences containing the literal (starting with it after a '^').
+     * @param regex : the regex of the request
+     * @return literal : the literal, without the '^', or null if the regex is not a literal
+     */
+    public static Literal literal(String regex) {
+        int from = regex.startsWith("^") ? 1 : 0;
+        if (regex.length() == from) return null;
+
+        byte[] literal = new byte[regex.length() - from];
+        for (int i = from; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == 0 || c >= 0x80 || c == '\n' || c == '\r' || "\\.[]{}()*+?^$|".indexOf(c) >= 0) return null;
+            literal[i - from] = (byte) c;
+        }
+        return new Literal(literal);
+    }
+
+    /*
+     * Searches the next sentence matching a literal.
+     * @param literal : the literal, from LiteralIndex.literal
+     * @param anchored : true if the sentence must start with the literal, false if it must contain it
+     * @param from : the first sentence to search
+     * @return index : the first sentence from the given one matching the literal, -1 if none
+     */
+    public int next(Literal literal, boolean anchored, int from) {
+        if (from >= this.size) return -1;
+        return anchored ? nextPrefix(literal, from) : nextContaining(literal, from);
+    }
+
+    /*
+     * Searches the next sentence starting with a literal.
+     * @param literal : the literal
+     * @param from : the first sentence to search
+     * @return index : the first sentence from the given one starting with the literal, -1 if none
+     */
+    private int nextPrefix(Literal literal, int from) {
+        byte[] bytes = literal.bytes;
+        if (!VECTOR) {
+            for (int s = from; s < this.size; s++) {
+                if (startsWith(s, bytes)) return s;
+            }
+            return -1;
+        }
+
+        // The columns compare the first bytes, the rest of a longer literal is compared afterwards
+        int n = Math.min(bytes.length, COLUMNS);
+        for (int s = VectorKernel.nextPrefix(this.columns, this.size, bytes, n, from); s >= 0;
+                s = VectorKernel.nextPrefix(this.columns, this.size, bytes, n, s + 1)) {
+            if (bytes.length <= COLUMNS || startsWith(s, bytes)) return s;
+        }
+        return -1;
+    }
+
+    /*
+     * Searches the next sentence containing a literal.
+     * @param literal : the literal
+     * @param from : the first sentence to search
+     * @return index : the first sentence from the given one containing the literal, -1 if none
+     */
+    private int nextContaining(Literal literal, int from) {
+        int start = this.offsets[from];
+        int end = this.offsets[this.size];
+        int position = VECTOR ? VectorKernel.indexOf(this.text, start, end, literal) : indexOf(this.text, start, end, literal);
+        if (position < 0) return -1;
+
+        // The literal has no '\n', so it is inside a single sentence
+        int index = Arrays.binarySearch(this.offsets, from, this.size + 1, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /*
+     * Tells if a sentence starts with a literal.
+     * @param s : the index of the sentence
+     * @param literal : the literal
+     * @return : true if the sentence starts with the literal
+     */
+    private boolean startsWith(int s, byte[] literal) {
+        int start = this.offsets[s];
+        return this.offsets[s + 1] - 1 - start >= literal.length && regionEquals(this.text, start, literal);
+    }
+
+    /*
+     * Tells if the bytes at a position are the literal.
+     * @param text : the bytes
+     * @param position : the position (the literal must fit before the end of the bytes)
+     * @param literal : the literal
+     * @return : true if the bytes are the literal
+     */
+    static boolean regionEquals(byte[] text, int position, byte[] literal) {
+        for (int i = 0; i < literal.length; i++) {
+            if (text[position + i] != literal[i]) return false;
+        }
+        return true;
+    }
+
+    /*
+     * Searches a literal in bytes without vectors. Literals of 4 bytes or more are searched with
+     * Boyer-Moore-Horspool, which jumps over the positions where the byte under their end can't be in them.
+     * @param text : the bytes where to search
+     * @param from : the first position to search
+     * @param to : the end of the bytes to search (excluded)
+     * @param literal : the literal searched
+     * @return position : the first position of the literal from the given one, -1 if absent
+     */
+    static int indexOf(byte[] text, int from, int to, Literal literal) {
+        byte[] bytes = literal.bytes;
+        int last = bytes.length - 1;
+        if (literal.skip == null) {
+            for (int p = from; p <= to - bytes.length; p++) {
+                if (text[p] == bytes[0] && regionEquals(text, p, bytes)) return p;
+            }
+            return -1;
+        }
+
+        for (int p = from; p <= to - bytes.length; ) {
+            byte b = text[p + last];
+            if (b == bytes[last] && regionEquals(text, p, bytes)) return p;
+            p += literal.skip[b];
+        }
+        return -1;
+    }
+
+    /*
+     * Tells if the Vector API can be used : it needs "--add-modules jdk.incubator.vector" and can be
+     * disabled with -Dvector=false.
+     * @param None
+     * @return : true if the vector searches can be used
+     */
+    private static boolean vectorAvailable() {
+        if (!Boolean.parseBoolean(System.getProperty("vector", "true"))) return false;
+        try {
+            int length = VectorKernel.length();
+            return length >= COLUMNS && length <= PADDING;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /*
+     * Internal class of a literal searched, with the shifts of Boyer-Moore-Horspool computed once for
+     * all the categories and sentences searched.
+     */
+    public static class Literal {
+        final byte[] bytes;
+        final int[] skip; // null for the literals of less than 4 bytes, searched byte by byte
+
+        /*
+         * Constructs an object Literal.
+         * @param bytes : the ASCII bytes of the literal
+         * @return None
+         */
+        Literal(byte[] bytes) {
+            this.bytes = bytes;
+            if (bytes.length < 4) {
+                this.skip = null;
+                return;
+            }
+
+            int last = bytes.length - 1;
+            this.skip = new int[128];
+            Arrays.fill(this.skip, bytes.length);
+            for (int i = 0; i < last; i++) {
+                this.skip[bytes[i]] = last - i;
+            }
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/*
+ * Small class to process the requests of the optimized server (with cache).
+ */
+public class OptimizedProtocol {
+    private static final byte[] SEPARATOR = {'@', '@', '@'};
+    private static final byte[] CURSOR = {'c', 'u', 'r', 's', 'o', 'r'};
+    private static final byte[] LIMIT = {'l', 'i', 'm', 'i', 't'};
+    private static final byte[] MODE = {'m', 'o', 'd', 'e'};
+    private static final byte[] COUNT = {'c', 'o', 'u', 'n', 't'};
+    private static final byte[] EXISTS = {'e', 'x', 'i', 's', 't', 's'};
+    private static final byte[] LIST = {'l', 'i', 's', 't'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] ERROR = {'e', 'r', 'r', 'o', 'r'};
+    private static final byte[] TIMEOUT = {'t', 'i', 'm', 'e', 'o', 'u', 't'};
+    private static final byte[] REJECTED = {'r', 'e', 'j', 'e', 'c', 't', 'e', 'd'};
+    private static final byte[] INVALID = {'i', 'n', 'v', 'a', 'l', 'i', 'd'};
+
+    /*
+     * What a request wants to know about the matching sentences.
+     */
+    public enum Mode {
+        LIST,   // the sentences themselves ("category@@@sentence" lines)
+        COUNT,  // their number only ("count=<n>")
+        EXISTS  // if there is at least one ("exists=true" or "exists=false")
+    }
+
+    // Prefix filters : length of the prefixes, bits per sentence, and maximal number of requests kept without result
+    private static final int PREFIX_LENGTH = 8;
+    private static final int FILTER_BITS = 10;
+    private static final int NEGATIVE_SIZE = 100000;
+
+    // Time given to the search of a request by default, in milliseconds (risky regexes get a quarter of it)
+    public static final long DEFAULT_BUDGET = 1000;
+
+    private final Cache<Bytes, byte[]> cache;
+    private final String[][] dbMap;
+    private final PrefixFilter[] filters;
+    private final LiteralIndex[] literals;
+    private final boolean ascii;
+    private final long budget;
+
+    /*
+     * Constructs an object OptimizedProtocol with the lines of the database given.
+     * @param dbMap : the map of the lines of the database
+     * @param size : the maximal size of the cache
+     * @param threshold : the maximal threshold of frequency for the cache
+     * @return None
+     */
+    public OptimizedProtocol(String[][] dbMap, int size, float threshold) {
+        this(dbMap, size, threshold, DEFAULT_BUDGET);
+    }
+
+    /*
+     * Constructs an object OptimizedProtocol with the lines of the database given and a time budget per request.
+     * @param dbMap : the map of the lines of the database
+     * @param size : the maximal size of the cache
+     * @param threshold : the maximal threshold of frequency for the cache
+     * @param budget : the maximal time of the search of a request in milliseconds (0 for no limit)
+     * @return None
+     */
+    public OptimizedProtocol(String[][] dbMap, int size, float threshold, long budget) {
+        this.cache = new Cache<>(size, threshold, NEGATIVE_SIZE);
+        this.dbMap = dbMap;
+        this.budget = budget * 1_000_000;
+
+        // One filter of the sentence prefixes and one index of the bytes of the sentences per category // optimized
+        this.filters = new PrefixFilter[dbMap.length];
+        this.literals = new LiteralIndex[dbMap.length];
+        boolean ascii = true;
+        for (int i = 0; i < dbMap.length; i++) {
+            this.filters[i] = new PrefixFilter(dbMap[i], PREFIX_LENGTH, FILTER_BITS);
+            this.literals[i] = new LiteralIndex(dbMap[i]);
+            ascii &= this.literals[i].isUsable();
+        }
+        this.ascii = ascii;
+    }
+
+    /*
+     * Returns the cache of the responses (to save it or fill it from a snapshot).
+     * @param None
+     * @return cache : the cache of the protocol
+     */
+    public Cache<Bytes, byte[]> getCache() {
+        return this.cache;
+    }
+
+    /*
+     * Process the request with the database and the cache and returns the adequate response.
+     * @param request : the request to process
+     * @return response : the response to the request
+     */
+    public String processValue(String request) throws InterruptedException {
+        if (request == null) return null;
+
+        Worker worker = new Worker();
+        if (!process(new Request(request), worker)) return null;
+        return worker.getResponse().toString();
+    }
+
+    /*
+     * Process the request with the database and the cache and appends the adequate response to the
+     * response of the worker. A request found in the cache creates no object.
+     * The phases are recorded as PhaseEvent if the Flight Recorder is on.
+     * A request "limit=<n>,cursor=<c>;types;regex" stops the search after n matches and, if it stopped
+     * early, ends the response with a line "cursor=<c>" to send back to get the next matches.
+     * With the option "mode=count" or "mode=exists", the response is a single line with the number of
+     * matches or if there is one. They are taken from the cached response of the same types and regex
+     * when there is one, otherwise the search stops at the first match for exists.
+     * A request without result is answered without search when its regex starts with "^" and a literal
+     * prefix that the filter of each category rejects, or when it is in the negative entries of the cache.
+     * The negative entries are checked before the regex is extracted, so that a repeated request without
+     * result creates no object either.
+     * The search stops at the time budget of the server with the line "error=timeout" as the whole response,
+     * the deadline being also checked inside the matching of a sentence (a quarter of the budget for risky regexes).
+     * A regex with nested unbounded quantifiers, like "(a+)+", is answered "error=rejected" without search
+     * and a regex that doesn't compile "error=invalid". These responses are not cached.
+     * A regex that is a plain literal ("abc" or "^abc") is searched in the bytes of the sentences by
+     * LiteralIndex instead of the regex engine.
+     * @param request : the request to process
+     * @param worker : the reusable objects of the calling thread
+     * @return : true if the request has been processed, false if its format is incorrect
+     */
+    public boolean process(Request request, Worker worker) {
+        Bytes value = request.getBytes();
+        Bytes response = worker.response;
+        int start = response.length();
+
+        // Checking if the request is already in the cache // optimized
+        PhaseEvent cacheEvent = new PhaseEvent(request.getId(), PhaseEvent.CACHE);
+        cacheEvent.begin();
+        byte[] cached = this.cache.get(value);
+        cacheEvent.commit();
+        worker.cacheHit = cached != null;
+        if (cached != null) {
+            PhaseEvent responseEvent = new PhaseEvent(request.getId(), PhaseEvent.RESPONSE);
+            responseEvent.begin();
+            response.append(cached);
+            responseEvent.commit();
+            return true;
+        }
+
+        PhaseEvent parseEvent = new PhaseEvent(request.getId(), PhaseEvent.PARSE);
+        parseEvent.begin();
+        int semicolon = value.indexOf((byte) ';', 0);
+        int equal = value.indexOf((byte) '=', 0);
+        int typesStart = 0;
+        worker.limit = 0;
+        worker.cursor = 0;
+        worker.mode = Mode.LIST;
+        if (semicolon >= 0 && equal >= 0 && equal < semicolon) {
+            // Options before the types
+            if (!parseOptions(value, 0, semicolon, worker)) {
+                System.err.println("The request options are incorrect ! Process : impossible !");
+                return false;
+            }
+            typesStart = semicolon + 1;
+            semicolon = value.indexOf((byte) ';', typesStart);
+        }
+        if (semicolon < 0) {
+            System.err.println("The request format is incorrect ! Process : impossible !");
+            return false;
+        }
+
+        int nbTypes = parseTypes(value, typesStart, semicolon, worker);
+        parseEvent.commit();
+        if (nbTypes < 0) {
+            System.err.println("The request format is incorrect ! Process : impossible !");
+            return false;
+        }
+
+        // Count and existence from the cached list of the matches, without search // optimized
+        boolean plain = worker.mode != Mode.LIST && worker.cursor == 0;
+        cacheEvent = new PhaseEvent(request.getId(), PhaseEvent.CACHE);
+        cacheEvent.begin();
+        if (plain) {
+            worker.key.clear();
+            worker.key.append(value, typesStart, value.length());
+            byte[] list = this.cache.get(worker.key);
+            if (list != null) {
+                int found = 0;
+                for (byte b : list) {
+                    if (b == '\n') found++;
+                }
+                if (worker.limit > 0) found = Math.min(found, worker.limit);
+                appendAnswer(response, worker.mode, found);
+                this.cache.add(value.copy(), response.toByteArray(start, response.length()));
+                cacheEvent.commit();
+                return true;
+            }
+        }
+
+        // Requests already known to have no result, answered like the cached ones without object // optimized
+        boolean negative = this.cache.isNegative(value) || (plain && this.cache.isNegative(worker.key));
+        cacheEvent.commit();
+        if (negative) {
+            worker.cacheHit = true;
+            if (worker.mode != Mode.LIST) appendAnswer(response, worker.mode, 0);
+            return true;
+        }
+
+        // Extraction of the regex
+        parseEvent = new PhaseEvent(request.getId(), PhaseEvent.PARSE);
+        parseEvent.begin();
+        String regex = value.toString(semicolon + 1, value.length());
+        parseEvent.commit();
+
+        // Categories where no sentence starts with the literal prefix of a "^literal" regex are skipped // optimized
+        PhaseEvent filterEvent = new PhaseEvent(request.getId(), PhaseEvent.FILTER);
+        filterEvent.begin();
+        int firstType = (int) (worker.cursor >>> 32);
+        int firstSentence = (int) worker.cursor;
+        boolean filtered = literalPrefix(regex) >= PREFIX_LENGTH;
+        boolean possible = !filtered;
+        for (int i = firstType; i < nbTypes && !possible; i++) {
+            possible = this.filters[worker.types[i]].mightStartWith(regex, 1);
+        }
+        filterEvent.commit();
+        if (!possible) {
+            // Kept with the requests without result, so that it is not parsed again when repeated
+            this.cache.addNegative(value.copy());
+            if (worker.mode != Mode.LIST) appendAnswer(response, worker.mode, 0);
+            return true;
+        }
+
+        // Plain literals don't need the regex engine // optimized
+        LiteralIndex.Literal literal = this.ascii ? LiteralIndex.literal(regex) : null;
+        boolean anchored = regex.startsWith("^");
+        Matcher matcher = null;
+        RegexRisk risk = RegexRisk.SAFE;
+        if (literal == null) {
+            PhaseEvent compileEvent = new PhaseEvent(request.getId(), PhaseEvent.COMPILE);
+            compileEvent.begin();
+            // The regexes that would backtrack exponentially are not compiled // optimized
+            risk = RegexRisk.of(regex);
+            if (risk == RegexRisk.DANGEROUS) {
+                compileEvent.commit();
+                appendError(response, REJECTED);
+                return true;
+            }
+            try {
+                matcher = worker.matcher(Pattern.compile(regex));
+            } catch (PatternSyntaxException e) {
+                appendError(response, INVALID);
+                return true;
+            } finally {
+                compileEvent.commit();
+            }
+        }
+
+        // Deadline of the search, also checked inside the matching of each sentence // optimized
+        // since a regex read as safe can still backtrack for seconds on a single sentence
+        long deadline = Long.MAX_VALUE;
+        if (this.budget > 0) deadline = System.nanoTime() + (risk == RegexRisk.RISKY ? this.budget / 4 : this.budget);
+        GuardedSequence guard = this.budget > 0 ? worker.guard : null;
+
+        // Search in the hashmap, from the cursor (index in the types, index in the category) up to the limit
+        PhaseEvent scanEvent = new PhaseEvent(request.getId(), PhaseEvent.SCAN);
+        scanEvent.begin();
+        boolean list = worker.mode == Mode.LIST;
+        int limit = worker.mode == Mode.EXISTS ? 1 : worker.limit;
+        int found = 0;
+        long next = -1;
+        int searched = 0;
+        try {
+            search:
+            for (int i = firstType; i < nbTypes; i++) {
+                int key = worker.types[i];
+                if (filtered && !this.filters[key].mightStartWith(regex, 1)) continue;
+
+                String[] sentences = this.dbMap[key];
+                for (int j = (i == firstType ? Math.max(firstSentence, 0) : 0); j < sentences.length; j++) {
+                    if ((++searched & 255) == 0) GuardedSequence.check(deadline);
+                    if (literal != null) {
+                        j = this.literals[key].next(literal, anchored, j);
+                        if (j < 0) break;
+                    } else {
+                        matcher.reset(guard == null ? sentences[j] : guard.reset(sentences[j], deadline));
+                        if (!matcher.find()) continue;
+                    }
+
+                    if (list) response.appendLong(key).append(SEPARATOR).appendUtf8(sentences[j]).append((byte) '\n');
+                    if (++found == limit) {
+                        next = ((long) i << 32) | (j + 1);
+                        break search;
+                    }
+                }
+            }
+        } catch (GuardedSequence.Timeout e) {
+            // The matches already written are dropped
+            response.truncate(start);
+            appendError(response, TIMEOUT);
+            scanEvent.commit();
+            return true;
+        }
+        if (!list) appendAnswer(response, worker.mode, found);
+        else if (next >= 0) response.append(CURSOR).append((byte) '=').appendLong(next).append((byte) '\n');
+        scanEvent.commit();
+
+        // Requests without result (false positives of the filters or others) are kept apart
+        cacheEvent = new PhaseEvent(request.getId(), PhaseEvent.CACHE);
+        cacheEvent.begin();
+        if (found == 0) this.cache.addNegative(value.copy());
+        else this.cache.add(value.copy(), response.toByteArray(start, response.length())); // optimized
+        cacheEvent.commit();
+        return true;
+    }
+
+    /*
+     * Returns the number of characters that every match of the regex starts with, when the regex is
+     * anchored at the beginning ("^abc..."). The characters are taken up to the first special one, without
+     * the last one if it is followed by a quantifier. Alternatives ('|') can't be anchored this way.
+     * @param regex : the regex of the request
+     * @return length : the number of literal characters after the '^' (0 if not anchored)
+     */
+    public static int literalPrefix(String regex) {
+        if (regex.isEmpty() || regex.charAt(0) != '^' || regex.indexOf('|') >= 0) return 0;
+
+        int end = 1;
+        while (end < regex.length() && "\\.[]{}()*+?^$|".indexOf(regex.charAt(end)) < 0) end++;
+        if (end < regex.length() && "*+?{".indexOf(regex.charAt(end)) >= 0) end--;
+        return end - 1;
+    }
+
+    /*
+     * Appends the single line answer of a count or exists request.
+     * @param response : the response where to write
+     * @param mode : the mode of the request
+     * @param found : the number of matches
+     * @return None
+     */
+    private static void appendAnswer(Bytes response, Mode mode, int found) {
+        if (mode == Mode.COUNT) {
+            response.append(COUNT).append((byte) '=').appendLong(found).append((byte) '\n');
+        } else {
+            response.append(EXISTS).append((byte) '=').append(found > 0 ? TRUE : FALSE).append((byte) '\n');
+        }
+    }
+
+    /*
+     * Appends the single line answer of a request that has not been searched completely.
+     * @param response : the response where to write
+     * @param reason : the reason of the error
+     * @return None
+     */
+    private static void appendError(Bytes response, byte[] reason) {
+        response.append(ERROR).append((byte) '=').append(reason).append((byte) '\n');
+    }
+
+    /*
+     * Reads the comma separated options "limit=<n>", "cursor=<c>" and "mode=list|count|exists"
+     * of the request into the worker.
+     * @param value : the request
+     * @param from : the index of the first option
+     * @param to : the index of the ';' after the options
+     * @param worker : the worker receiving the options
+     * @return : false if an option is unknown or its value is incorrect
+     */
+    private boolean parseOptions(Bytes value, int from, int to, Worker worker) {
+        int start = from;
+        while (start < to) {
+            int end = value.indexOf((byte) ',', start);
+            if (end < 0 || end > to) end = to;
+            int equal = value.indexOf((byte) '=', start);
+            if (equal < 0 || equal > end) return false;
+
+            try {
+                if (value.regionEquals(start, equal, MODE)) {
+                    if (value.regionEquals(equal + 1, end, COUNT)) worker.mode = Mode.COUNT;
+                    else if (value.regionEquals(equal + 1, end, EXISTS)) worker.mode = Mode.EXISTS;
+                    else if (value.regionEquals(equal + 1, end, LIST)) worker.mode = Mode.LIST;
+                    else return false;
+                } else if (value.regionEquals(start, equal, LIMIT)) {
+                    worker.limit = (int) Math.min(value.parseLong(equal + 1, end), Integer.MAX_VALUE);
+                } else if (value.regionEquals(start, equal, CURSOR)) {
+                    worker.cursor = value.parseLong(equal + 1, end);
+                } else {
+                    return false;
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    /*
+     * Reads the comma separated types before the ';' of the request into the types of the worker.
+     * @param value : the request
+     * @param from : the index of the first type
+     * @param semicolon : the index of the ';'
+     * @param worker : the worker receiving the types
+     * @return nbTypes : the number of types to search (all of them if the list is empty), -1 if a type
+     *                   is empty, not a number or not a category of the database
+     */
+    private int parseTypes(Bytes value, int from, int semicolon, Worker worker) {
+        // If no types we search them all
+        if (semicolon == from) {
+            worker.ensureTypes(this.dbMap.length);
+            for (int i = 0; i < this.dbMap.length; i++) {
+                worker.types[i] = i;
+            }
+            return this.dbMap.length;
+        }
+
+        int nbTypes = 0;
+        int type = 0;
+        int digits = 0;
+        for (int i = from; i <= semicolon; i++) {
+            byte b = i < semicolon ? value.get(i) : (byte) ',';
+            if (b == ',') {
+                if (digits == 0) return -1;
+                // A type given twice is searched once
+                boolean known = false;
+                for (int k = 0; k < nbTypes && !known; k++) known = worker.types[k] == type;
+                if (!known) {
+                    worker.ensureTypes(nbTypes + 1);
+                    worker.types[nbTypes++] = type;
+                }
+                type = 0;
+                digits = 0;
+            } else {
+                if (b < '0' || b > '9') return -1;
+                type = type * 10 + (b - '0');
+                digits++;
+                if (type >= this.dbMap.length) return -1;
+            }
+        }
+        return nbTypes;
+    }
+
+    /*
+     * Internal class of the objects reused by a thread from one request to the next.
+     */
+    public static class Worker {
+        private Bytes response;
+        private final Bytes key;
+        private final GuardedSequence guard;
+        private int[] types;
+        private Matcher matcher;
+        private boolean cacheHit;
+        private int limit;
+        private long cursor;
+        private Mode mode;
+
+        /*
+         * Constructs an object Worker.
+         * @param None
+         * @return None
+         */
+        public Worker() {
+            this.response = new Bytes(4096);
+            this.key = new Bytes(128);
+            this.guard = new GuardedSequence();
+            this.types = new int[8];
+        }
+
+        /*
+         * Returns the buffer where the responses are written.
+         * @param None
+         * @return response : the response buffer
+         */
+        public Bytes getResponse() {
+            return this.response;
+        }
+
+        /*
+         * Replaces the buffer where the responses are written, when the previous one has been given away.
+         * @param response : the new response buffer
+         * @return None
+         */
+        public void setResponse(Bytes response) {
+            this.response = response;
+        }
+
+        /*
+         * Tells if the last request processed by the worker has been found in the cache.
+         * @param None
+         * @return : true if it was a cache hit
+         */
+        public boolean isCacheHit() {
+            return this.cacheHit;
+        }
+
+        /*
+         * Returns the matcher of the thread, set to a new pattern.
+         * @param pattern : the pattern of the request
+         * @return matcher : the reused matcher
+         */
+        private Matcher matcher(Pattern pattern) {
+            if (this.matcher == null) this.matcher = pattern.matcher("");
+            else this.matcher.usePattern(pattern);
+            return this.matcher;
+        }
+
+        /*
+         * Grows the array of types if it can't hold the given number of types.
+         * @param capacity : the number of types needed
+         * @return None
+         */
+        private void ensureTypes(int capacity) {
+            if (capacity > this.types.length) {
+                this.types = Arrays.copyOf(this.types, Math.max(capacity, this.types.length * 2));
+            }
+        }
+    }
+}
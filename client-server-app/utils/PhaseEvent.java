@@ -0,0 +1,48 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event of the time spent by a request in one phase of its processing.
+ * The events of a request are linked to its RequestEvent by the request id.
+ * Without stack trace, an event costs a few tens of nanoseconds when recorded and nothing otherwise.
+ */
+@Name("lingi2241.Phase")
+@Label("Request Phase")
+@Category({"LINGI2241", "Server"})
+@Description("Time spent by a request in one phase of its processing")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+
+    // Phases of the processing of a request
+    public static final String PARSE = "parse";       // extraction of the types and of the regex
+    public static final String COMPILE = "compile";   // compilation of the pattern
+    public static final String CACHE = "cache";       // lookup and insertion in the cache
+    public static final String FILTER = "filter";     // lookup of the prefix in the filters of the categories
+    public static final String SCAN = "scan";         // search in the database, matches written in the response
+    public static final String RESPONSE = "response"; // building of the response out of the scan
+    public static final String LOCK = "lock";         // waiting for the lock of the writer
+    public static final String WRITE = "write";       // writing of the response (queuing for the writing thread in OptimizedServer)
+
+    @Label("Request Id")
+    private final long requestId;
+
+    @Label("Phase")
+    private final String phase;
+
+    /*
+     * Constructs an event PhaseEvent, to be started with begin() and recorded with commit().
+     * @param requestId : the id of the request
+     * @param phase : the name of the phase
+     * @return None
+     */
+    public PhaseEvent(long requestId, String phase) {
+        this.requestId = requestId;
+        this.phase = phase;
+    }
+}
@@ -0,0 +1,90 @@
+package utils;
+
+/*
+ * Small class to manage a Bloom filter of the first characters of the sentences of a category.
+ * It can tell for sure that no sentence starts with a given text, so that a request like "^text"
+ * does not have to search the category. It may wrongly say that one does (about 1% of the time
+ * with 10 bits per sentence).
+ */
+public class PrefixFilter {
+    private final long[] bits;
+    private final long nbBits;
+    private final int nbHashes;
+    private final int length;
+
+    /*
+     * Constructs an object PrefixFilter holding the prefixes of the sentences.
+     * @param sentences : the sentences of the category
+     * @param length : the number of characters of the prefixes
+     * @param bitsPerSentence : the size of the filter per sentence (10 bits give about 1% of false positives)
+     * @return None
+     */
+    public PrefixFilter(String[] sentences, int length, int bitsPerSentence) {
+        this.length = length;
+        this.nbHashes = Math.max(1, (int) Math.round(bitsPerSentence * Math.log(2)));
+        this.bits = new long[(int) Math.max(1, ((long) sentences.length * bitsPerSentence + 63) / 64)];
+        this.nbBits = this.bits.length * 64L;
+
+        // Sentences shorter than the prefix can't start with a text of this length
+        for (String sentence : sentences) {
+            if (sentence.length() < length) continue;
+            long hash = hash(sentence, 0);
+            for (int i = 0; i < this.nbHashes; i++) {
+                long bit = index(hash, i);
+                this.bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+
+    /*
+     * Returns the number of characters of the prefixes in the filter.
+     * @param None
+     * @return length : the length of the prefixes
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /*
+     * Tells if a sentence of the category may start with the given text.
+     * @param text : the characters (at least getLength() of them from the index)
+     * @param from : the index of the first character of the text
+     * @return : false if no sentence starts with the text for sure, true if some may
+     */
+    public boolean mightStartWith(CharSequence text, int from) {
+        long hash = hash(text, from);
+        for (int i = 0; i < this.nbHashes; i++) {
+            long bit = index(hash, i);
+            if ((this.bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /*
+     * Computes the hash of the prefix (FNV-1a followed by the finalizer of SplitMix64).
+     * @param text : the characters
+     * @param from : the index of the first character of the prefix
+     * @return hash : the 64 bits hash of the prefix
+     */
+    private long hash(CharSequence text, int from) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < from + this.length; i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /*
+     * Returns the index of the i-th bit of a prefix, by double hashing.
+     * @param hash : the hash of the prefix
+     * @param i : the number of the hash function
+     * @return index : the index of the bit
+     */
+    private long index(long hash, int i) {
+        long h1 = hash & 0xffffffffL;
+        long h2 = (hash >>> 32) | 1;
+        return Math.floorMod(h1 + i * h2, this.nbBits);
+    }
+}
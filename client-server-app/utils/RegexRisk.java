@@ -0,0 +1,170 @@
+package utils;
+
+/*
+ * Risk of catastrophic backtracking of a regex, found by reading the regex before its compilation.
+ */
+public enum RegexRisk {
+    SAFE,      // matched normally, the search still stops at the deadline
+    RISKY,     // backreferences, lookarounds, quantified alternatives, (.*a){12} or many ".*" : matched with a shorter deadline
+    DANGEROUS; // nested unbounded quantifiers like (a+)+ or (.*a)* : rejected
+
+    // Bounded quantifiers with a greater maximum are considered unbounded
+    private static final int MAX_BOUNDED = 100;
+
+    /*
+     * Analyzes a regex.
+     * @param regex : the regex of the request
+     * @return risk : the risk of the regex
+     */
+    public static RegexRisk of(String regex) {
+        int n = regex.length();
+        boolean[] quantified = new boolean[n + 1]; // the group holds an unbounded quantifier
+        boolean[] alternative = new boolean[n + 1]; // the group holds a '|'
+        boolean[] atomic = new boolean[n + 1]; // the group is atomic (?>...)
+        int depth = 0;
+        int unbounded = 0;
+        boolean risky = false;
+
+        for (int i = 0; i < n; i++) {
+            char c = regex.charAt(i);
+
+            if (c == '\\' && i + 1 < n && regex.charAt(i + 1) == 'Q') {
+                // Quoted characters \Q...\E are literals, up to the end of the regex without \E
+                int quoteEnd = regex.indexOf("\\E", i + 2);
+                i = quoteEnd < 0 ? n : quoteEnd + 1;
+            } else if (c == '\\') {
+                // Backreferences \1 to \9 and \k<name>
+                if (i + 1 < n && ((regex.charAt(i + 1) >= '1' && regex.charAt(i + 1) <= '9') || regex.charAt(i + 1) == 'k')) risky = true;
+                i++;
+            } else if (c == '[') {
+                i = classEnd(regex, i);
+            } else if (c == '(') {
+                depth++;
+                quantified[depth] = false;
+                alternative[depth] = false;
+                atomic[depth] = false;
+                if (i + 2 < n && regex.charAt(i + 1) == '?') {
+                    char kind = regex.charAt(i + 2);
+                    if (kind == '=' || kind == '!' || (kind == '<' && i + 3 < n && (regex.charAt(i + 3) == '=' || regex.charAt(i + 3) == '!'))) risky = true;
+                    if (kind == '>') atomic[depth] = true;
+                }
+            } else if (c == ')' && depth > 0) {
+                boolean inner = quantified[depth] && !atomic[depth];
+                boolean innerAlternative = alternative[depth];
+                depth--;
+
+                int end = quantifierEnd(regex, i + 1);
+                boolean repeated = isUnbounded(regex, i + 1, end);
+                if (repeated && inner) return DANGEROUS;
+                if (repeated && innerAlternative) risky = true;
+                // A bounded repetition of a group holding ".*" multiplies the ways to split a sentence, like (.*a){12}
+                if (inner && isRepeated(regex, i + 1, end)) risky = true;
+                if (repeated) unbounded++;
+                quantified[depth] |= inner || repeated;
+                i = end - 1;
+            } else if (c == '|') {
+                alternative[depth] = true;
+            } else {
+                int end = quantifierEnd(regex, i);
+                if (end > i) {
+                    if (isUnbounded(regex, i, end)) {
+                        quantified[depth] = true;
+                        unbounded++;
+                    }
+                    i = end - 1;
+                }
+            }
+        }
+
+        // Each ".*" multiplies the number of ways to split a sentence
+        if (unbounded >= 3) risky = true;
+        return risky ? RISKY : SAFE;
+    }
+
+    /*
+     * Returns the index of the ']' closing a character class, nested classes included.
+     * @param regex : the regex
+     * @param start : the index of the '['
+     * @return index : the index of the ']' (the end of the regex if it is not closed)
+     */
+    private static int classEnd(String regex, int start) {
+        int depth = 0;
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') i++;
+            else if (c == '[') depth++;
+            else if (c == ']' && i > start + 1 && --depth == 0) return i;
+        }
+        return regex.length();
+    }
+
+    /*
+     * Returns the index after the quantifier (with its reluctant or possessive mark) starting at the index.
+     * @param regex : the regex
+     * @param start : the index where a quantifier may start
+     * @return index : the index after the quantifier, or start if there is none
+     */
+    private static int quantifierEnd(String regex, int start) {
+        if (start >= regex.length()) return start;
+        char c = regex.charAt(start);
+
+        int end;
+        if (c == '*' || c == '+' || c == '?') {
+            end = start + 1;
+        } else if (c == '{') {
+            int close = regex.indexOf('}', start);
+            if (close < 0) return start;
+            end = close + 1;
+        } else {
+            return start;
+        }
+
+        if (end < regex.length() && (regex.charAt(end) == '?' || regex.charAt(end) == '+')) end++;
+        return end;
+    }
+
+    /*
+     * Tells if a quantifier {n} or {n,m} can repeat more than once, possessive or not.
+     * @param regex : the regex
+     * @param start : the index of the quantifier
+     * @param end : the index after the quantifier
+     * @return : true if the quantifier is a bounded repetition of more than one time
+     */
+    private static boolean isRepeated(String regex, int start, int end) {
+        if (end == start || regex.charAt(start) != '{') return false;
+
+        String body = regex.substring(start + 1, regex.indexOf('}', start));
+        int comma = body.indexOf(',');
+        try {
+            return Integer.parseInt((comma < 0 ? body : body.substring(comma + 1)).trim()) > 1;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /*
+     * Tells if a quantifier can repeat without limit and backtrack (possessive quantifiers never backtrack).
+     * @param regex : the regex
+     * @param start : the index of the quantifier
+     * @param end : the index after the quantifier
+     * @return : true if the quantifier is unbounded and not possessive
+     */
+    private static boolean isUnbounded(String regex, int start, int end) {
+        if (end == start) return false;
+        if (end - 1 > start && regex.charAt(end - 1) == '+') return false;
+
+        char c = regex.charAt(start);
+        if (c == '*' || c == '+') return true;
+        if (c != '{') return false;
+
+        String body = regex.substring(start + 1, regex.indexOf('}', start));
+        int comma = body.indexOf(',');
+        if (comma < 0) return false;
+        if (comma == body.length() - 1) return true;
+        try {
+            return Integer.parseInt(body.substring(comma + 1).trim()) > MAX_BOUNDED;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package utils;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Small class to manage the connections of a client to several identical servers (replicas).
+ * Each request is sent to the replica with the fewest requests waiting for a response. If it is not
+ * answered after the hedging delay (a percentile of the last response times, 95 for instance), it is
+ * sent to a second replica too and the first response is kept (hedged request).
+ * The number before the first ';' of a request, that the servers send back at the start of the
+ * response, is an id of the request: the responses of a replica can come in any order.
+ * A replica that closes its connection is not chosen anymore, and the requests it had not answered are
+ * sent to another replica (or completed with an IOException if no replica is connected anymore).
+ * The response times of the requests sent during the warm-up of the JVMs are not used for the hedging delay.
+ */
+public class ReplicaPool {
+    // Number of last response times used for the hedging delay, and number needed before hedging
+    private static final int WINDOW = 1024;
+    private static final int MIN_SAMPLES = 100;
+    // Time after the creation of the pool before the response times are used, in nanoseconds
+    public static final long WARMUP = 2_000_000_000L;
+
+    private final Replica[] replicas;
+    private final double percentile;
+    private final long created;
+    private final ConcurrentHashMap<Long, Pending> pending;
+    private final AtomicLong nextId;
+    private final ScheduledExecutorService timer;
+    private final long[] window;
+    private long samples;
+    private volatile long hedgeDelay;
+    private final AtomicLong hedged;
+    private final AtomicLong hedgeWins;
+
+    /*
+     * Constructs an object ReplicaPool connected to the replicas.
+     * @param addresses : the addresses of the replicas
+     * @param percentile : the percentile of the response times after which a request is hedged (0 for no hedging)
+     * @return None
+     */
+    public ReplicaPool(List<InetSocketAddress> addresses, double percentile) throws IOException {
+        this.percentile = percentile;
+        this.created = System.nanoTime();
+        this.pending = new ConcurrentHashMap<>();
+        this.nextId = new AtomicLong();
+        this.window = new long[WINDOW];
+        this.hedgeDelay = -1;
+        this.hedged = new AtomicLong();
+        this.hedgeWins = new AtomicLong();
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "hedging");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.replicas = new Replica[addresses.size()];
+        for (int i = 0; i < this.replicas.length; i++) {
+            this.replicas[i] = new Replica(addresses.get(i));
+        }
+    }
+
+    /*
+     * Reads a list of replicas "host:port,host:port,...".
+     * @param list : the list of replicas
+     * @return addresses : the addresses of the replicas
+     */
+    public static List<InetSocketAddress> parse(String list) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String replica : list.split(",")) {
+            int colon = replica.lastIndexOf(':');
+            addresses.add(new InetSocketAddress(replica.substring(0, colon), Integer.parseInt(replica.substring(colon + 1))));
+        }
+        return addresses;
+    }
+
+    /*
+     * Sends a request to the replica with the fewest requests waiting, and to a second one if it is late.
+     * @param request : the request "types;regex", without timestamp
+     * @return response : completed with the first response received (without the id and the last empty line)
+     */
+    public CompletableFuture<String> send(String request) throws IOException {
+        long id = this.nextId.getAndIncrement();
+        Pending waiting = new Pending(request, System.nanoTime());
+        this.pending.put(id, waiting);
+
+        Replica primary = leastOutstanding(id);
+        if (primary == null) {
+            this.pending.remove(id);
+            throw new IOException("No replica is connected !");
+        }
+        waiting.primary = primary;
+        waiting.copies.incrementAndGet();
+        primary.send(id, request); // sent again to another replica if the primary is disconnected
+
+        long delay = this.hedgeDelay;
+        if (this.percentile > 0 && delay >= 0 && this.replicas.length > 1) {
+            this.timer.schedule(() -> hedge(id, waiting), delay, TimeUnit.NANOSECONDS);
+        }
+        return waiting.future;
+    }
+
+    /*
+     * Returns the number of requests sent to a second replica.
+     * @param None
+     * @return hedged : the number of hedged requests
+     */
+    public long getHedged() {
+        return this.hedged.get();
+    }
+
+    /*
+     * Returns the number of hedged requests answered first by the second replica.
+     * @param None
+     * @return wins : the number of hedged requests won by the second replica
+     */
+    public long getHedgeWins() {
+        return this.hedgeWins.get();
+    }
+
+    /*
+     * Returns the current hedging delay.
+     * @param None
+     * @return delay : the delay in nanoseconds, -1 before enough responses
+     */
+    public long getHedgeDelay() {
+        return this.hedgeDelay;
+    }
+
+    /*
+     * Closes the connections for writing, waits the last responses and closes them.
+     * @param None
+     * @return None
+     */
+    public void close() throws IOException, InterruptedException {
+        this.timer.shutdownNow();
+        for (Replica replica : this.replicas) replica.shutdownOutput();
+        for (Replica replica : this.replicas) replica.reader.join();
+        for (Replica replica : this.replicas) replica.socket.close();
+    }
+
+    /*
+     * Sends a late request to a second replica.
+     * @param id : the id of the request
+     * @param request : the request
+     * @return None
+     */
+    private void hedge(long id, Pending request) {
+        if (request.future.isDone()) return;
+        Replica second = leastOutstanding(id);
+        if (second == null) return;
+
+        request.copies.incrementAndGet();
+        this.hedged.incrementAndGet();
+        second.send(id, request.line);
+    }
+
+    /*
+     * Chooses the connected replica with the fewest requests waiting, the ties being broken in turn.
+     * The replicas already waiting for the response of the request are not chosen.
+     * @param id : the id of the request
+     * @return replica : the chosen replica, or null if there is none
+     */
+    private Replica leastOutstanding(long id) {
+        Replica best = null;
+        for (int k = 0; k < this.replicas.length; k++) {
+            Replica replica = this.replicas[(int) ((id + k) % this.replicas.length)];
+            if (!replica.connected || !replica.writable || replica.ids.contains(id)) continue;
+            if (best == null || replica.ids.size() < best.ids.size()) best = replica;
+        }
+        return best;
+    }
+
+    /*
+     * Handles a response of a replica: the first response of a request completes it.
+     * @param replica : the replica that answered
+     * @param id : the id of the request
+     * @param response : the response
+     * @return None
+     */
+    private void received(Replica replica, long id, String response) {
+        // The copy is not owned by the replica anymore if it has already been sent to another one
+        boolean owned = replica.ids.remove(id);
+        Pending request = this.pending.get(id);
+        if (request == null) return;
+
+        if (request.future.complete(response)) {
+            if (replica != request.primary) this.hedgeWins.incrementAndGet();
+            if (request.start - this.created >= WARMUP) record(System.nanoTime() - request.start);
+        }
+        if (owned && request.copies.decrementAndGet() == 0) this.pending.remove(id);
+    }
+
+    /*
+     * Sends the requests not answered by a disconnected replica to other replicas.
+     * @param replica : the disconnected replica
+     * @return None
+     */
+    private void failOver(Replica replica) {
+        for (Long id : replica.ids) {
+            sendAgain(replica, id);
+        }
+    }
+
+    /*
+     * Sends a request that a replica will not answer to another replica, unless it is already answered
+     * or has a copy on another replica. Without other replica, it is completed with an IOException.
+     * The request is handled once even if several threads call the method.
+     * @param replica : the replica that will not answer
+     * @param id : the id of the request
+     * @return None
+     */
+    private void sendAgain(Replica replica, long id) {
+        if (!replica.ids.remove(id)) return;
+        Pending request = this.pending.get(id);
+        if (request == null || request.copies.decrementAndGet() > 0) return;
+        if (request.future.isDone()) {
+            this.pending.remove(id);
+            return;
+        }
+
+        Replica other = leastOutstanding(id);
+        if (other != null) {
+            // The other replica takes the place of the primary, for the hedging and its statistics
+            request.primary = other;
+            request.copies.incrementAndGet();
+            other.send(id, request.line);
+        } else {
+            this.pending.remove(id);
+            request.future.completeExceptionally(new IOException("No replica is connected !"));
+        }
+    }
+
+    /*
+     * Adds a response time to the window and computes the hedging delay again every 100 responses.
+     * @param time : the response time in nanoseconds
+     * @return None
+     */
+    private synchronized void record(long time) {
+        this.window[(int) (this.samples++ % WINDOW)] = time;
+        if (this.percentile <= 0 || this.samples < MIN_SAMPLES || this.samples % 100 != 0) return;
+
+        long[] sorted = Arrays.copyOf(this.window, (int) Math.min(this.samples, WINDOW));
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(this.percentile / 100 * sorted.length);
+        this.hedgeDelay = sorted[Math.max(rank - 1, 0)];
+    }
+
+    /*
+     * Internal class of a request waiting for its response.
+     */
+    private static class Pending {
+        final String line;
+        final long start;
+        final CompletableFuture<String> future;
+        final AtomicInteger copies;
+        volatile Replica primary;
+
+        /*
+         * Constructs an object Pending.
+         * @param line : the request
+         * @param start : the time of the sending (System.nanoTime())
+         * @return None
+         */
+        Pending(String line, long start) {
+            this.line = line;
+            this.start = start;
+            this.future = new CompletableFuture<>();
+            this.copies = new AtomicInteger();
+        }
+    }
+
+    /*
+     * Internal class of the connection to a replica, with the thread reading its responses.
+     */
+    private class Replica {
+        final Socket socket;
+        final Writer writer;
+        final Set<Long> ids; // the requests sent and not answered yet
+        final Thread reader;
+        volatile boolean connected; // false once the replica has closed the connection
+        volatile boolean writable; // false once a request can't be written anymore
+
+        /*
+         * Constructs an object Replica connected to the address and starts its reading thread.
+         * @param address : the address of the replica
+         * @return None
+         */
+        Replica(InetSocketAddress address) throws IOException {
+            this.socket = new Socket(address.getHostString(), address.getPort());
+            this.socket.setTcpNoDelay(true);
+            this.writer = new BufferedWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.UTF_8));
+            this.ids = ConcurrentHashMap.newKeySet();
+            this.connected = true;
+            this.writable = true;
+            BufferedReader in = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+            this.reader = new Thread(() -> read(in), "replica-" + address);
+            this.reader.start();
+        }
+
+        /*
+         * Sends a request with its id. If the replica is disconnected, it is sent to another one.
+         * @param id : the id of the request
+         * @param request : the request
+         * @return None
+         */
+        void send(long id, String request) {
+            if (!this.ids.add(id)) {
+                // A hedge and a failover chose this replica at the same time, it answers once
+                Pending waiting = pending.get(id);
+                if (waiting != null) waiting.copies.decrementAndGet();
+                return;
+            }
+            try {
+                synchronized (this.writer) {
+                    this.writer.write(Long.toString(id));
+                    this.writer.write(';');
+                    this.writer.write(request);
+                    this.writer.write('\n');
+                    this.writer.flush();
+                }
+            } catch (IOException e) {
+                // The requests already written may still be answered
+                System.err.println(e.getMessage());
+                this.writable = false;
+                sendAgain(this, id);
+            }
+            // A request added while the reading thread was failing over the others is sent again too
+            if (!this.connected) sendAgain(this, id);
+        }
+
+        /*
+         * Closes the connection for writing: the replica answers the last requests and closes it.
+         * @param None
+         * @return None
+         */
+        void shutdownOutput() throws IOException {
+            synchronized (this.writer) {
+                this.writer.flush();
+                this.socket.shutdownOutput();
+            }
+        }
+
+        /*
+         * Reads the responses "id;lines" ended by an empty line, until the replica closes the connection.
+         * @param in : the stream of the replica
+         * @return None
+         */
+        void read(BufferedReader in) {
+            try {
+                StringBuilder response = new StringBuilder();
+                long id = -1;
+                String line = in.readLine();
+
+                while (line != null) {
+                    if (id < 0) {
+                        String[] splitResponse = line.split(";", 2);
+                        id = Long.parseLong(splitResponse[0]);
+                        line = splitResponse[1];
+                    }
+
+                    if (line.equals("")) {
+                        received(this, id, response.toString());
+                        response.setLength(0);
+                        id = -1;
+                    } else {
+                        response.append(line).append('\n');
+                    }
+
+                    line = in.readLine();
+                }
+
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            } finally {
+                this.connected = false;
+                failOver(this);
+            }
+        }
+    }
+}
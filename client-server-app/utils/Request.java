@@ -1,19 +1,29 @@
 package utils;
 
-import java.util.Date;
 import java.io.Serializable;
 
 /*
  * Small class to manage the requests.
+ * The value and the times are kept in reusable fields so that the same object can serve many requests.
  */
 public class Request implements Serializable {
 
-    private String value;
-    private Date startWaitTime;
-    private Date endWaitTime;
-    private Date startTreatTime;
-    private Date endTreatTime;
-    private Date sentByClient;
+    private final Bytes value;
+    private long id;
+    private long startWaitTime;
+    private long endWaitTime;
+    private long startTreatTime;
+    private long endTreatTime;
+    private long sentByClient;
+
+    /*
+     * Constructs an empty object Request, to be filled by a RequestReader.
+     * @param None
+     * @return None
+     */
+    public Request() {
+        this.value = new Bytes(128);
+    }
 
     /*
      * Constructs an object Request with a String value.
@@ -21,7 +31,8 @@ public class Request implements Serializable {
      * @return None
      */
     public Request(String value) {
-        this.value = value;
+        this();
+        this.value.appendUtf8(value);
     }
 
     /*
@@ -30,60 +41,87 @@ public class Request implements Serializable {
      * @return value : the String contained in the request
      */
     public String getValue() {
+        return value.toString();
+    }
+
+    /*
+     * Returns the value of the request as UTF-8 bytes, without creating a String.
+     * @param None
+     * @return value : the bytes contained in the request
+     */
+    public Bytes getBytes() {
         return value;
     }
 
+    /*
+     * Sets the id of the request, given by the server in the order of arrival.
+     * @param id : the id
+     * @return None
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /*
+     * Returns the id of the request.
+     * @param None
+     * @return id : the id given by the server
+     */
+    public long getId() {
+        return id;
+    }
+
     /*
      * Sets the time when the request started to wait in the queue.
-     * @param time : the start time
+     * @param time : the start time (in milliseconds)
      * @return None
      */
-    public void startWait(Date time) {
+    public void startWait(long time) {
         this.startWaitTime = time;
     }
 
     /*
      * Sets the time when the request stopped to wait in the queue.
-     * @param time : the end time
+     * @param time : the end time (in milliseconds)
      * @return None
      */
-    public void endWait(Date time) {
+    public void endWait(long time) {
         this.endWaitTime = time;
     }
 
     /*
      * Sets the time when the request started to be processed by the service station.
-     * @param time : the start time
+     * @param time : the start time (in milliseconds)
      * @return None
      */
-    public void startTreat(Date time) {
+    public void startTreat(long time) {
         this.startTreatTime = time;
     }
 
     /*
      * Sets the time when the request stopped to be processed by the service station.
-     * @param time : the end time
+     * @param time : the end time (in milliseconds)
      * @return None
      */
-    public void endTreat(Date time) {
+    public void endTreat(long time) {
         this.endTreatTime = time;
     }
 
     /*
      * Sets the time when the request has been sent by the client.
-     * @param time : the time
+     * @param time : the time (in milliseconds)
      * @return None
      */
-    public void setSentByClient(Date time) {
+    public void setSentByClient(long time) {
         this.sentByClient = time;
     }
 
     /*
      * Gets the time when the request has been sent by the client.
      * @param None
-     * @return time : the time
+     * @return time : the time (in milliseconds)
      */
-    public Date getSentByClient() {
+    public long getSentByClient() {
         return sentByClient;
     }
 
@@ -93,7 +131,7 @@ public class Request implements Serializable {
      * @return time : the time spent in the queue
      */
     public long waitTime() {
-        return this.endWaitTime.getTime() - this.startWaitTime.getTime();
+        return this.endWaitTime - this.startWaitTime;
     }
 
     /*
@@ -102,7 +140,7 @@ public class Request implements Serializable {
      * @return time : the time spent in the service station
      */
     public long treatTime() {
-        return this.endTreatTime.getTime() - this.startTreatTime.getTime();
+        return this.endTreatTime - this.startTreatTime;
     }
 
 }
\ No newline at end of file
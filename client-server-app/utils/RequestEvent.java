@@ -0,0 +1,80 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*
+ * Flight Recorder event of the processing of a request by a thread of the server, from the end of
+ * its wait in the queue to the end of the writing of its response.
+ */
+@Name("lingi2241.Request")
+@Label("Request")
+@Category({"LINGI2241", "Server"})
+@Description("Processing of a request, from the end of its wait in the queue to the end of its writing")
+@StackTrace(false)
+public class RequestEvent extends Event {
+
+    @Label("Request Id")
+    private long requestId;
+
+    @Label("Categories")
+    private String categories;
+
+    @Label("Cache Hit")
+    private boolean cacheHit;
+
+    @Label("Result Size")
+    @DataAmount
+    private long resultSize;
+
+    @Label("Queue Time")
+    @Timespan(Timespan.MILLISECONDS)
+    private long queueTime;
+
+    /*
+     * Constructs an event RequestEvent, to be started with begin().
+     * @param requestId : the id of the request
+     * @return None
+     */
+    public RequestEvent(long requestId) {
+        this.requestId = requestId;
+    }
+
+    /*
+     * Sets the fields known at the end of the request, to be called only if shouldCommit()
+     * is true so that nothing is computed when the event is not recorded.
+     * @param categories : the categories of the request
+     * @param cacheHit : true if the response has been found in the cache
+     * @param resultSize : the size of the response, in bytes
+     * @param queueTime : the time spent in the queue, in milliseconds
+     * @return None
+     */
+    public void set(String categories, boolean cacheHit, long resultSize, long queueTime) {
+        this.categories = categories;
+        this.cacheHit = cacheHit;
+        this.resultSize = resultSize;
+        this.queueTime = queueTime;
+    }
+
+    /*
+     * Returns the types of a request "[options;]types;regex", the options being the field before
+     * the first ';' when it holds a '='.
+     * @param request : the request
+     * @return categories : the comma separated types, empty for all of them
+     */
+    public static String categories(String request) {
+        int start = 0;
+        int semicolon = request.indexOf(';');
+        if (semicolon >= 0 && request.lastIndexOf('=', semicolon) >= 0) {
+            start = semicolon + 1;
+            semicolon = request.indexOf(';', start);
+        }
+        return semicolon < 0 ? "" : request.substring(start, semicolon);
+    }
+}
@@ -0,0 +1,77 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * Small class to read the "timestamp;types;regex" lines sent by the client directly into reused requests.
+ * Unlike BufferedReader.readLine and String.split, reading a request creates no object.
+ */
+public class RequestReader {
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    /*
+     * Constructs an object RequestReader on a stream.
+     * @param in : the stream of the client
+     * @return None
+     */
+    public RequestReader(InputStream in) {
+        this.in = in;
+        this.buffer = new byte[8192];
+        this.position = 0;
+        this.limit = 0;
+    }
+
+    /*
+     * Reads the next line of the stream in the request: the timestamp before the first ';' is
+     * parsed as the sending time and the rest of the line becomes the value of the request.
+     * @param request : the request to fill (its previous value is erased)
+     * @return : true if a line has been read, false at the end of the stream
+     */
+    public boolean next(Request request) throws IOException {
+        Bytes value = request.getBytes();
+        value.clear();
+
+        long timestamp = 0;
+        boolean inTimestamp = true;
+        boolean empty = true;
+
+        while (true) {
+            if (this.position == this.limit && !fill()) {
+                if (empty) return false;
+                break;
+            }
+            byte b = this.buffer[this.position++];
+            empty = false;
+
+            if (b == '\n') break;
+            if (b == '\r') continue;
+
+            if (inTimestamp) {
+                if (b == ';') inTimestamp = false;
+                else timestamp = timestamp * 10 + (b - '0');
+            } else {
+                value.append(b);
+            }
+        }
+
+        request.setSentByClient(timestamp);
+        return true;
+    }
+
+    /*
+     * Reads the next bytes of the stream in the buffer.
+     * @param None
+     * @return : false at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        int n = this.in.read(this.buffer, 0, this.buffer.length);
+        if (n <= 0) return false;
+        this.position = 0;
+        this.limit = n;
+        return true;
+    }
+}
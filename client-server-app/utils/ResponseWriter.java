@@ -0,0 +1,167 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Small class to write the responses of all the threads with a single writing thread.
+ * The threads only queue their responses; the writing thread takes all the responses ready
+ * (waiting at most a given delay for more) and writes them with one gathering write.
+ * The responses are not copied: a thread gives its buffer to the writer and takes a free one back.
+ * The queues are arrays allocated once, so that queuing a response creates no object.
+ */
+public class ResponseWriter {
+    private static final Bytes STOP = new Bytes(0);
+    private static final int INITIAL_CAPACITY = 4096;
+    // Buffers grown above this size by a large response are dropped instead of being reused
+    private static final int MAX_KEPT_CAPACITY = 1 << 16;
+
+    private final GatheringByteChannel channel;
+    private final ArrayBlockingQueue<Bytes> queue;
+    private final ArrayBlockingQueue<Bytes> free;
+    private final int maxBatch;
+    private final long maxDelay;
+    private final Thread thread;
+    private volatile boolean failed;
+    private long writes;
+    private long responses;
+
+    /*
+     * Constructs an object ResponseWriter and starts its writing thread.
+     * @param channel : the channel of the client
+     * @param capacity : the maximal number of responses waiting to be written
+     * @param maxBatch : the maximal number of responses written at once
+     * @param maxDelay : the maximal time to wait for more responses before writing, in nanoseconds
+     * @return None
+     */
+    public ResponseWriter(GatheringByteChannel channel, int capacity, int maxBatch, long maxDelay) {
+        this.channel = channel;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        // At most capacity buffers are queued and maxBatch being written, all the others are free or held by threads
+        this.free = new ArrayBlockingQueue<>(capacity + maxBatch);
+        this.maxBatch = maxBatch;
+        this.maxDelay = maxDelay;
+        this.thread = new Thread(this::run, "response-writer");
+        this.thread.start();
+    }
+
+    /*
+     * Queues the response, which belongs to the writer once the method returns.
+     * Waits if too many responses are already waiting to be written.
+     * @param response : the response to write, not to be used anymore by the caller
+     * @return free : an empty buffer to write the next response in
+     */
+    public Bytes write(Bytes response) throws InterruptedException {
+        if (this.failed) {
+            response.clear();
+            return response;
+        }
+
+        this.queue.put(response);
+        Bytes free = this.free.poll();
+        if (free == null) free = new Bytes(INITIAL_CAPACITY);
+        free.clear();
+        return free;
+    }
+
+    /*
+     * Writes the responses still waiting and stops the writing thread.
+     * @param None
+     * @return None
+     */
+    public void close() throws InterruptedException {
+        this.queue.put(STOP);
+        this.thread.join();
+    }
+
+    /*
+     * Returns the number of writes done on the channel (one system call each).
+     * @param None
+     * @return writes : the number of writes, final once closed
+     */
+    public long getWrites() {
+        return this.writes;
+    }
+
+    /*
+     * Returns the number of responses written.
+     * @param None
+     * @return responses : the number of responses, final once closed
+     */
+    public long getResponses() {
+        return this.responses;
+    }
+
+    /*
+     * Loop of the writing thread.
+     * @param None
+     * @return None
+     */
+    private void run() {
+        Bytes[] batch = new Bytes[this.maxBatch];
+        ByteBuffer[] buffers = new ByteBuffer[this.maxBatch];
+        boolean stop = false;
+
+        try {
+            while (!stop) {
+                Bytes first = this.queue.take();
+                if (first == STOP) break;
+                batch[0] = first;
+                int n = 1;
+
+                // Gathers the responses ready or arriving before the deadline
+                long deadline = System.nanoTime() + this.maxDelay;
+                while (n < this.maxBatch) {
+                    Bytes next = this.queue.poll();
+                    if (next == null) {
+                        long wait = deadline - System.nanoTime();
+                        if (wait <= 0) break;
+                        next = this.queue.poll(wait, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                    }
+                    if (next == STOP) {
+                        stop = true;
+                        break;
+                    }
+                    batch[n++] = next;
+                }
+
+                flush(batch, buffers, n);
+            }
+        } catch (InterruptedException | IOException e) {
+            this.failed = true;
+            this.queue.clear();
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /*
+     * Writes a batch of responses to the channel and gives their buffers back, except the too large ones.
+     * @param batch : the responses
+     * @param buffers : the array receiving the ByteBuffers of the responses
+     * @param n : the number of responses in the batch
+     * @return None
+     */
+    private void flush(Bytes[] batch, ByteBuffer[] buffers, int n) throws IOException {
+        long remaining = 0;
+        for (int i = 0; i < n; i++) {
+            buffers[i] = batch[i].asByteBuffer();
+            remaining += buffers[i].remaining();
+        }
+
+        while (remaining > 0) {
+            remaining -= this.channel.write(buffers, 0, n);
+            this.writes++;
+        }
+        this.responses += n;
+
+        for (int i = 0; i < n; i++) {
+            if (batch[i].capacity() <= MAX_KEPT_CAPACITY) this.free.offer(batch[i]);
+            batch[i] = null;
+            buffers[i] = null;
+        }
+    }
+}
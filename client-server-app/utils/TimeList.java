@@ -0,0 +1,75 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Small class to store measured times without boxing them in Long objects.
+ * Not thread-safe: each thread keeps its own list and the lists are merged at the end.
+ */
+public class TimeList {
+    private long[] times;
+    private int size;
+
+    /*
+     * Constructs an empty object TimeList.
+     * @param None
+     * @return None
+     */
+    public TimeList() {
+        this.times = new long[1024];
+        this.size = 0;
+    }
+
+    /*
+     * Adds a time at the end of the list.
+     * @param time : the time to add
+     * @return None
+     */
+    public void add(long time) {
+        if (this.size == this.times.length) {
+            this.times = Arrays.copyOf(this.times, this.size * 2);
+        }
+        this.times[this.size++] = time;
+    }
+
+    /*
+     * Adds all the times of another list at the end of this one.
+     * @param other : the list to add
+     * @return None
+     */
+    public void addAll(TimeList other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.times[i]);
+        }
+    }
+
+    /*
+     * Returns the time at the given index.
+     * @param index : the index of the time
+     * @return time : the time
+     */
+    public long get(int index) {
+        return this.times[index];
+    }
+
+    /*
+     * Returns the number of times in the list.
+     * @param None
+     * @return size : the number of times
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /*
+     * Returns a percentile of sorted times (nearest rank).
+     * @param sorted : the sorted times
+     * @param p : the percentile wanted, between 0 and 100
+     * @return time : the percentile
+     */
+    public static double percentile(List<Long> sorted, double p) {
+        int rank = (int) Math.ceil(p / 100 * sorted.size());
+        return sorted.get(Math.max(rank - 1, 0));
+    }
+}
@@ -0,0 +1,135 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * Small class to read a trace written by TraceWriter, one request at a time.
+ */
+public class TraceReader {
+    private final InputStream in;
+    private final long start;
+    private final Bytes line;
+    private long time;
+    private int connection;
+
+    /*
+     * Constructs an object TraceReader on a trace file.
+     * @param filename : the file of the trace
+     * @return None
+     */
+    public TraceReader(String filename) throws IOException {
+        this.in = new BufferedInputStream(new FileInputStream(filename), 65536);
+        this.line = new Bytes(128);
+
+        int magic = 0;
+        int version = 0;
+        for (int i = 0; i < 4; i++) magic = (magic << 8) | readByte();
+        for (int i = 0; i < 4; i++) version = (version << 8) | readByte();
+        if (magic != TraceWriter.MAGIC || version != TraceWriter.VERSION) {
+            this.in.close();
+            throw new IOException(filename + " is not a trace of requests !");
+        }
+        this.start = readVarLong();
+    }
+
+    /*
+     * Returns the time of the start of the recording.
+     * @param None
+     * @return start : the milliseconds since 1970
+     */
+    public long getStart() {
+        return this.start;
+    }
+
+    /*
+     * Reads the next request of the trace.
+     * @param None
+     * @return : true if a request has been read, false at the end of the trace
+     */
+    public boolean next() throws IOException {
+        int first = this.in.read();
+        if (first < 0) return false;
+
+        this.time += readVarLong(first);
+        this.connection = (int) readVarLong();
+        int length = (int) readVarLong();
+        this.line.clear();
+        for (int i = 0; i < length; i++) this.line.append((byte) readByte());
+        return true;
+    }
+
+    /*
+     * Returns the time of the last request read.
+     * @param None
+     * @return time : the nanoseconds since the start of the recording
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /*
+     * Returns the connection of the last request read.
+     * @param None
+     * @return connection : the id of the connection of the client
+     */
+    public int getConnection() {
+        return this.connection;
+    }
+
+    /*
+     * Returns the last request read (the same object is reused by the next call).
+     * @param None
+     * @return line : the request, without the timestamp of the client
+     */
+    public Bytes getLine() {
+        return this.line;
+    }
+
+    /*
+     * Closes the file.
+     * @param None
+     * @return None
+     */
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /*
+     * Reads a number written by groups of 7 bits.
+     * @param None
+     * @return n : the number
+     */
+    private long readVarLong() throws IOException {
+        return readVarLong(readByte());
+    }
+
+    /*
+     * Reads a number written by groups of 7 bits whose first byte is already read.
+     * @param first : the first byte
+     * @return n : the number
+     */
+    private long readVarLong(int first) throws IOException {
+        long n = first & 0x7f;
+        int shift = 7;
+        for (int b = first; (b & 0x80) != 0; shift += 7) {
+            b = readByte();
+            n |= (long) (b & 0x7f) << shift;
+        }
+        return n;
+    }
+
+    /*
+     * Reads a byte of the file.
+     * @param None
+     * @return b : the byte, between 0 and 255
+     */
+    private int readByte() throws IOException {
+        int b = this.in.read();
+        if (b < 0) throw new EOFException("The trace is truncated !");
+        return b;
+    }
+}
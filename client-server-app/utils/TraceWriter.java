@@ -0,0 +1,155 @@
+package utils;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+ * Small class to record the requests received by a server in a compact binary trace, to replay them later.
+ * The file starts with "LTRC", a version and the time of the start (milliseconds since 1970), then each
+ * request is written as : the nanoseconds since the previous one, the connection id and the length of
+ * the line (all three as variable length numbers, 7 bits per byte) followed by the bytes of the line.
+ * Recording a request creates no object. The file is written when the 64 KB buffer is full, every 1000
+ * requests and at the first request more than one second after the last writing, so that a trace
+ * cut by a crash loses little. The methods are synchronized to be closed from a shutdown hook.
+ * If the file can't be written, the error is printed and the recording stops without other effect.
+ */
+public class TraceWriter {
+    static final int MAGIC = 0x4c545243; // "LTRC"
+    static final int VERSION = 1;
+    private static final int FLUSH_COUNT = 1000;
+    private static final long FLUSH_DELAY = 1_000_000_000L; // nanoseconds
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private long last;
+    private long lastFlush;
+    private int unflushed;
+    private long count;
+    private boolean closed;
+
+    /*
+     * Constructs an object TraceWriter writing in a new file.
+     * @param filename : the file of the trace
+     * @return None
+     */
+    public TraceWriter(String filename) throws IOException {
+        this.out = new FileOutputStream(filename);
+        this.buffer = new byte[65536];
+        this.position = 0;
+        this.last = System.nanoTime();
+        this.lastFlush = this.last;
+
+        writeInt(MAGIC);
+        writeInt(VERSION);
+        writeVarLong(System.currentTimeMillis());
+    }
+
+    /*
+     * Records a request received now, nothing is done once the trace is closed or has failed.
+     * @param connection : the id of the connection of the client
+     * @param line : the request, without the timestamp of the client
+     * @return None
+     */
+    public synchronized void record(int connection, Bytes line) {
+        if (this.closed) return;
+
+        try {
+            long now = System.nanoTime();
+            writeVarLong(now - this.last);
+            writeVarLong(connection);
+            writeVarLong(line.length());
+            this.last = now;
+
+            if (line.length() > this.buffer.length - this.position) {
+                flush();
+                if (line.length() > this.buffer.length) line.writeTo(this.out);
+            }
+            if (line.length() <= this.buffer.length) {
+                for (int i = 0; i < line.length(); i++) {
+                    this.buffer[this.position++] = line.get(i);
+                }
+            }
+            this.count++;
+
+            if (++this.unflushed >= FLUSH_COUNT || now - this.lastFlush >= FLUSH_DELAY) flush();
+        } catch (IOException e) {
+            System.err.println("Tracing stopped : " + e.getMessage());
+            this.closed = true;
+            try {
+                this.out.close();
+            } catch (IOException ignored) {
+                // the trace is already lost
+            }
+        }
+    }
+
+    /*
+     * Returns the number of requests recorded.
+     * @param None
+     * @return count : the number of requests
+     */
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    /*
+     * Writes the rest of the trace and closes the file, if it is not already closed.
+     * @param None
+     * @return None
+     */
+    public synchronized void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+        try {
+            flush();
+        } finally {
+            this.out.close();
+        }
+    }
+
+    /*
+     * Writes a number on 4 bytes (big endian).
+     * @param n : the number
+     * @return None
+     */
+    private void writeInt(int n) throws IOException {
+        for (int shift = 24; shift >= 0; shift -= 8) writeByte((byte) (n >>> shift));
+    }
+
+    /*
+     * Writes a positive number by groups of 7 bits, the first bit of each byte telling if another one follows.
+     * @param n : the number
+     * @return None
+     */
+    private void writeVarLong(long n) throws IOException {
+        while ((n & ~0x7fL) != 0) {
+            writeByte((byte) ((n & 0x7f) | 0x80));
+            n >>>= 7;
+        }
+        writeByte((byte) n);
+    }
+
+    /*
+     * Writes a byte in the buffer, the buffer being written to the file when it is full.
+     * @param b : the byte
+     * @return None
+     */
+    private void writeByte(byte b) throws IOException {
+        if (this.position == this.buffer.length) flush();
+        this.buffer[this.position++] = b;
+    }
+
+    /*
+     * Writes the buffer to the file.
+     * @param None
+     * @return None
+     */
+    private void flush() throws IOException {
+        this.out.write(this.buffer, 0, this.position);
+        this.position = 0;
+        this.unflushed = 0;
+        this.lastFlush = System.nanoTime();
+    }
+}
@@ -0,0 +1,76 @@
+package utils;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * Vector versions of the searches of LiteralIndex, with the incubating Vector API.
+ * This class is only loaded when the JVM is started with "--add-modules jdk.incubator.vector",
+ * otherwise LiteralIndex keeps its scalar searches.
+ */
+final class VectorKernel {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private VectorKernel() {
+    }
+
+    /*
+     * Returns the number of bytes compared per instruction.
+     * @param None
+     * @return length : the number of lanes of the vectors
+     */
+    static int length() {
+        return SPECIES.length();
+    }
+
+    /*
+     * Searches the first sentence starting with the first bytes of the literal, comparing the same
+     * byte of length() sentences at once.
+     * @param columns : columns[c][s] is the byte c of the sentence s (0 after its end), padded by 64 bytes
+     * @param size : the number of sentences
+     * @param literal : the literal searched
+     * @param n : the number of bytes of the literal compared (at most the number of columns)
+     * @param from : the first sentence to search
+     * @return index : the first sentence from the given one whose n first bytes are the literal's, -1 if none
+     */
+    static int nextPrefix(byte[][] columns, int size, byte[] literal, int n, int from) {
+        for (int s = from; s < size; s += SPECIES.length()) {
+            VectorMask<Byte> mask = ByteVector.fromArray(SPECIES, columns[0], s).eq(literal[0]);
+            for (int c = 1; c < n && mask.anyTrue(); c++) {
+                mask = mask.and(ByteVector.fromArray(SPECIES, columns[c], s).eq(literal[c]));
+            }
+            if (mask.anyTrue()) {
+                int index = s + mask.firstTrue();
+                return index < size ? index : -1;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Searches the literal in the bytes, comparing its first and last byte at length() positions at once
+     * and the whole literal only where both are equal.
+     * @param text : the bytes where to search
+     * @param from : the first position to search
+     * @param to : the end of the bytes to search (excluded)
+     * @param literal : the literal searched (at least 1 byte)
+     * @return position : the first position of the literal from the given one, -1 if absent
+     */
+    static int indexOf(byte[] text, int from, int to, LiteralIndex.Literal search) {
+        byte[] literal = search.bytes;
+        int last = literal.length - 1;
+        int p = from;
+        for (; p + last + SPECIES.length() <= to; p += SPECIES.length()) {
+            VectorMask<Byte> mask = ByteVector.fromArray(SPECIES, text, p).eq(literal[0])
+                    .and(ByteVector.fromArray(SPECIES, text, p + last).eq(literal[last]));
+            if (!mask.anyTrue()) continue;
+
+            // Candidates are rare, the lanes after the first one are checked one by one
+            for (int position = p + mask.firstTrue(); position < p + SPECIES.length(); position++) {
+                if (text[position + last] == literal[last] && LiteralIndex.regionEquals(text, position, literal)) return position;
+            }
+        }
+        return LiteralIndex.indexOf(text, p, to, search);
+    }
+}